@@ -0,0 +1,118 @@
+/* last update : 10/18/2026
+Corpus class - text the benchmarks tokenize and search, made once per benchmark run
+synthetic text is drawn from a fixed vocabulary with a few very common words, so the same seed gives the same text
+real text is read from a .txt or .pdf file through Import, the user guide by default, and repeated up to the size
+index files are turned off, so benchmark runs leave nothing in the user's home directory
+ */
+import bench.Workload;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+
+public class Corpus {
+    private static final String[] COMMON = {"the", "of", "and", "a", "to", "in", "is", "that", "it", "for", "as", "with",
+            "was", "on", "be", "by", "this", "are", "or", "from", "search", "document", "word", "sentence", "paragraph"};
+    private static final String[] SYLLABLES = {"ra", "ti", "on", "ca", "tion", "ment", "ex", "pro", "ing", "a", "ly", "er",
+            "st", "con", "de", "mi", "lo", "ven", "ar", "is"};
+    private static final HashMap<String, String> made = new HashMap<>(); // text already made in this JVM, by kind and size
+
+    static { IndexFile.enabled = false; }
+
+    private Corpus(){ }
+
+    /** @param kind "synthetic" or "real"
+     * @param megabytes millions of characters wanted
+     * @return text of about that many characters, cut at a line break
+     */
+    static synchronized String text(String kind, int megabytes) throws IOException {
+        String key = kind + megabytes;
+        String text = made.get(key);
+        if(text == null){
+            int length = megabytes * 1_000_000;
+            switch (kind) {
+                case "synthetic": text = synthetic(length, 42); break;
+                case "real": text = repeated(realText(), length); break;
+                default: throw new IllegalArgumentException("Unknown corpus " + kind);
+            }
+            made.put(key, text);
+        }
+        return text;
+    }
+
+    /** @param length number of characters
+     * @param seed random seed, the same seed gives the same text
+     * @return sentences of words whose frequency falls off with their rank, with punctuation, tags and paragraphs
+     */
+    static String synthetic(int length, long seed){
+        Random random = new Random(seed);
+
+        //vocabulary - the common words first, then made up words of two to four syllables
+        String[] vocabulary = new String[5000];
+        System.arraycopy(COMMON, 0, vocabulary, 0, COMMON.length);
+        for(int v = COMMON.length; v < vocabulary.length; v++){
+            StringBuilder word = new StringBuilder();
+            for(int s = 2 + random.nextInt(3); s > 0; s--){ word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]); }
+            vocabulary[v] = word.toString();
+        }
+
+        //word of rank r is picked with weight 1 / (r + 1)
+        double[] cumulative = new double[vocabulary.length];
+        double sum = 0;
+        for(int r = 0; r < vocabulary.length; r++){
+            sum += 1.0 / (r + 1);
+            cumulative[r] = sum;
+        }
+
+        StringBuilder text = new StringBuilder(length + 200);
+        while(text.length() < length){
+            for(int sentences = 3 + random.nextInt(6); sentences > 0; sentences--){
+                for(int w = 0, words = 5 + random.nextInt(20); w < words; w++){
+                    int r = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                    String word = vocabulary[Math.min(r < 0 ? -r - 1 : r, vocabulary.length - 1)];
+                    if(w == 0){ word = word.substring(0, 1).toUpperCase(Locale.ROOT) + word.substring(1); }
+                    else if(random.nextInt(200) == 0){ word = "<" + word + ">"; }
+                    text.append(word);
+                    if(w == words - 1){ text.append("........?!".charAt(random.nextInt(10))); }
+                    else if(random.nextInt(12) == 0){ text.append(','); }
+                    text.append(' ');
+                }
+            }
+            text.append(random.nextInt(4) == 0 ? "\n\n" : "\n");
+        }
+        return text.substring(0, lineBreakBefore(text, length));
+    }
+
+    /** @return text of the file named by the bench.text property, or of the user guide */
+    static String realText() throws IOException {
+        File file = new File(System.getProperty(Workload.TEXT_PROPERTY, Workload.DEFAULT_TEXT));
+        Import loaded = (file.getName().toLowerCase(Locale.ROOT).endsWith(".pdf")
+                ? Import.pdf(file, null, 1) : Import.text(file, null));
+        return ChunkedContent.text(loaded.document).toString();
+    }
+
+    /** @param text any text with at least one line
+     * @param length number of characters
+     * @return the text repeated, each copy on new lines, cut at a line break near length
+     */
+    static String repeated(String text, int length){
+        if(text.trim().isEmpty()){ throw new IllegalArgumentException("Real text is empty"); }
+        StringBuilder repeated = new StringBuilder(length + text.length() + 1);
+        while(repeated.length() < length){ repeated.append(text).append('\n'); }
+        return repeated.substring(0, lineBreakBefore(repeated, length));
+    }
+
+    /** @param text text longer than length
+     * @param length number of characters wanted
+     * @return index after the last line break at or before length, or length if there is none */
+    private static int lineBreakBefore(CharSequence text, int length){
+        for(int i = Math.min(length, text.length()) - 1; i > 0; i--){
+            if(text.charAt(i) == '\n'){ return i + 1; }
+        }
+        return Math.min(length, text.length());
+    }
+
+} // Corpus
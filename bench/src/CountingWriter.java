@@ -0,0 +1,22 @@
+/* last update : 10/18/2026
+CountingWriter class - writer that keeps nothing but the number of characters written
+lets Workloads and ScalingCheck measure HTML export without the disk
+ */
+import java.io.Writer;
+
+class CountingWriter extends Writer {
+    long count = 0;
+
+    @Override
+    public void write(char[] text, int from, int length){ count += length; }
+
+    @Override
+    public void write(String text, int from, int length){ count += length; }
+
+    @Override
+    public void flush(){ }
+
+    @Override
+    public void close(){ }
+
+} // CountingWriter
@@ -0,0 +1,216 @@
+/* last update : 10/18/2026
+ScalingCheck class - fails when tokenizing, searching, highlighting or exporting stops growing near linearly with document size
+usage: java ScalingCheck [--max-words N] [--time-scale X]   - exit status 0 if every check passed, 1 if one failed, 2 for bad arguments
+synthetic documents of 10 thousand up to 10 million words are processed stage by stage on one thread
+each stage must stay within a time and allocation budget per million characters, and its cost may only grow
+about as fast as the document between one size and the next - a quadratic path grows a hundred times for ten times the text
+allocations are counted with ThreadMXBean, through PhaseTimer
+ */
+import javax.swing.text.BadLocationException;
+import javax.swing.text.StyledDocument;
+import java.awt.Color;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+public class ScalingCheck {
+    static final int[] WORDS = {10_000, 100_000, 1_000_000, 10_000_000}; // document sizes, in words
+    static final int CHARACTERS_PER_WORD = 7; // about the length of a synthetic word and the space or punctuation after it
+    static final int REPEATS = 3; // runs of each stage, the cheapest is kept
+    static final int MIN_SCALING_WORDS = 100_000; // smaller documents are too fast to time reliably
+    static final long MIN_SCALING_NANOS = 5_000_000; // neither is a stage taking less than this
+    static final double MAX_TIME_EXPONENT = 1.3; // cost ~ size^exponent between sizes, 1 is linear and 2 quadratic
+    static final double MAX_ALLOCATION_EXPONENT = 1.2;
+    static final String[] STAGES = {"tokenize", "search", "highlight", "export"};
+    static final double[] MILLIS_PER_MB = {400, 150, 300, 500}; // time budget of each stage per million characters
+    static final double[] ALLOCATED_MB_PER_MB = {60, 10, 40, 64}; // allocation budget of each stage per million characters
+
+    private int maxWords = WORDS[WORDS.length - 1];
+    private double timeScale = 1; // multiplies the time budgets, for slower machines
+    private final List<String> failures = new ArrayList<>();
+
+    /** @param args command line arguments, see the usage above
+     * @throws IllegalArgumentException if the arguments are not understood
+     */
+    ScalingCheck(String[] args){
+        for(int i = 0; i < args.length; i++){
+            if(i + 1 >= args.length){ throw new IllegalArgumentException("Missing value for " + args[i]); }
+            try {
+                switch (args[i]) {
+                    case "--max-words": maxWords = Integer.parseInt(args[++i]); break;
+                    case "--time-scale": timeScale = Double.parseDouble(args[++i]); break;
+                    default: throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            catch (NumberFormatException e) { throw new IllegalArgumentException("Not a number: " + args[i]); }
+        }
+        if(maxWords < WORDS[0]){ throw new IllegalArgumentException("Max words must be at least " + WORDS[0]); }
+        if(timeScale <= 0){ throw new IllegalArgumentException("Time scale must be positive"); }
+    }
+
+    //main method
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        ScalingCheck check;
+        try { check = new ScalingCheck(args); }
+        catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("usage: java ScalingCheck [--max-words N] [--time-scale X]");
+            System.exit(2);
+            return;
+        }
+
+        try { System.exit(check.run() ? 0 : 1); }
+        catch (IOException | BadLocationException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+    } // main
+
+    /** measures every stage at every size, printing one line per stage and size
+     * @return true if every budget and scaling check passed */
+    boolean run() throws IOException, BadLocationException {
+        if(PhaseTimer.allocatedBytes() == 0){ System.err.println("Allocations are not counted by this JVM, only time is checked"); }
+        measure(Corpus.synthetic(WORDS[1] * CHARACTERS_PER_WORD, 7)); //warm up, not checked
+
+        System.out.printf(Locale.ROOT, "%-10s %10s %12s %10s %10s %14s %10s%n",
+                "stage", "words", "characters", "ms", "ms/MB", "allocated/MB", "growth");
+        long[][] last = null;
+        int lastLength = 0;
+        for(int words : WORDS){
+            if(words > maxWords){ break; }
+            String text = Corpus.synthetic(words * CHARACTERS_PER_WORD, 42);
+            long[][] costs = measure(text);
+            check(words, text.length(), costs, last, lastLength);
+            last = (words >= MIN_SCALING_WORDS ? costs : null);
+            lastLength = text.length();
+        }
+
+        if(failures.isEmpty()){ System.out.println("All scaling checks passed"); }
+        else {
+            System.out.println(failures.size() + " scaling checks failed:");
+            for(String failure : failures){ System.out.println("  " + failure); }
+        }
+        return failures.isEmpty();
+    }
+
+    /** @param text document to process
+     * @return nanoseconds and allocated bytes of each stage, the lowest of REPEATS runs */
+    private static long[][] measure(String text) throws BadLocationException, IOException {
+        long[][] costs = new long[STAGES.length][];
+        for(int s = 0; s < STAGES.length; s++){ costs[s] = new long[]{Long.MAX_VALUE, Long.MAX_VALUE}; }
+        StyledDocument document = ChunkedContent.newDocument(text.length());
+        document.insertString(0, text, null);
+
+        for(int r = 0; r < REPEATS; r++){
+            Tokenizer[] tokenizer = new Tokenizer[1];
+            for(int s = 0; s < STAGES.length; s++){
+                System.gc();
+                long bytes = PhaseTimer.allocatedBytes(), nanos = System.nanoTime();
+                stage(s, text, document, tokenizer);
+                nanos = System.nanoTime() - nanos;
+                bytes = PhaseTimer.allocatedBytes() - bytes;
+                costs[s][0] = Math.min(costs[s][0], nanos);
+                costs[s][1] = Math.min(costs[s][1], bytes);
+            }
+        }
+        return costs;
+    }
+
+    /** runs one stage on the calling thread
+     * @param stage index in STAGES
+     * @param text document text
+     * @param document document holding the text
+     * @param tokenizer Tokenizer made by the tokenize stage, used by the others
+     */
+    private static void stage(int stage, String text, StyledDocument document, Tokenizer[] tokenizer)
+            throws BadLocationException, IOException {
+        Tokenizer t = tokenizer[0];
+        switch (STAGES[stage]) {
+            case "tokenize":
+                tokenizer[0] = new Tokenizer(text, null, Integer.MAX_VALUE); //one chunk, so every allocation is counted
+                break;
+
+            case "search":
+                //single words, a substring, and phrases of common words, each searched again rather than remembered
+                String[][] queries = {{"the", "e"}, {"The", "ec"}, {"ation", ""}, {"of the", "e"}, {"in the document", ""}};
+                for(String[] query : queries){
+                    t.searchResults.clear();
+                    new Search(t, query[0], SearchType.WHOLE_DOCUMENT, Color.YELLOW,
+                            query[1].contains("e"), query[1].contains("c")).wordListInMap();
+                }
+                break;
+
+            case "highlight":
+                //flags for a mix of search types, then the sentences only view they make
+                t.highlightFlags = new BitSet();
+                Search.highlightAll(Arrays.asList(
+                        new Search(t, "the", SearchType.WHOLE_DOCUMENT, Color.YELLOW, true, false),
+                        new Search(t, "of", SearchType.SENTENCES, Color.CYAN, true, false),
+                        new Search(t, "and", SearchType.SENTENCES, Color.CYAN, true, false),
+                        new Search(t, "search", SearchType.PARAGRAPH, Color.PINK, true, false),
+                        new Search(t, "document", SearchType.PARAGRAPH, Color.PINK, true, false)));
+                new FilteredView(t, true, document);
+                break;
+
+            case "export":
+                new Export(t, "Scaling", text, null).writeHtml(new CountingWriter(), null);
+                break;
+
+            default: throw new IllegalStateException("Unknown stage " + STAGES[stage]);
+        }
+    }
+
+    /** prints the costs of one size and records every check they fail
+     * @param words words asked for
+     * @param length characters in the document
+     * @param costs nanoseconds and allocated bytes of each stage
+     * @param last costs of the previous size, null if it is not compared
+     * @param lastLength characters in the previous document
+     */
+    private void check(int words, int length, long[][] costs, long[][] last, int lastLength){
+        double megabytes = length / 1e6;
+        for(int s = 0; s < STAGES.length; s++){
+            double millis = costs[s][0] / 1e6, millisPerMB = millis / megabytes,
+                    allocatedPerMB = costs[s][1] / 1048576.0 / megabytes;
+            String growth = "";
+
+            if(words >= MIN_SCALING_WORDS && millisPerMB > MILLIS_PER_MB[s] * timeScale){
+                failures.add(String.format(Locale.ROOT, "%s of %d words took %.0f ms/MB, budget %.0f",
+                        STAGES[s], words, millisPerMB, MILLIS_PER_MB[s] * timeScale));
+            }
+            if(allocatedPerMB > ALLOCATED_MB_PER_MB[s]){
+                failures.add(String.format(Locale.ROOT, "%s of %d words allocated %.1f MB/MB, budget %.0f",
+                        STAGES[s], words, allocatedPerMB, ALLOCATED_MB_PER_MB[s]));
+            }
+
+            //cost ~ size^exponent between this size and the last
+            if(last != null){
+                double sizeRatio = Math.log((double) length / lastLength);
+                if(last[s][0] >= MIN_SCALING_NANOS){
+                    double exponent = Math.log((double) costs[s][0] / last[s][0]) / sizeRatio;
+                    growth = String.format(Locale.ROOT, "n^%.2f", exponent);
+                    if(exponent > MAX_TIME_EXPONENT){
+                        failures.add(String.format(Locale.ROOT, "%s time grew as n^%.2f up to %d words, most n^%.2f",
+                                STAGES[s], exponent, words, MAX_TIME_EXPONENT));
+                    }
+                }
+                if(last[s][1] > 0 && costs[s][1] > 0){
+                    double exponent = Math.log((double) costs[s][1] / last[s][1]) / sizeRatio;
+                    if(exponent > MAX_ALLOCATION_EXPONENT){
+                        failures.add(String.format(Locale.ROOT, "%s allocation grew as n^%.2f up to %d words, most n^%.2f",
+                                STAGES[s], exponent, words, MAX_ALLOCATION_EXPONENT));
+                    }
+                }
+            }
+
+            System.out.printf(Locale.ROOT, "%-10s %10d %12d %10.1f %10.1f %14.1f %10s%n",
+                    STAGES[s], words, length, millis, millisPerMB, allocatedPerMB, growth);
+        }
+    }
+
+} // ScalingCheck
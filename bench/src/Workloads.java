@@ -0,0 +1,82 @@
+/* last update : 10/18/2026
+Workloads class - runs what each benchmark measures on one corpus, see bench.Workload
+kept in the default package with the application classes, so it can use their package private members
+ */
+import bench.Workload;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Workloads implements Workload {
+    private String text;
+    private Tokenizer tokenizer; // tokens of the text, null unless loaded to be searched
+    private final List<Search> searches = new ArrayList<>(); // searches of intersect, run once
+    private boolean sentences; // intersect sentences rather than paragraphs
+    private Export exporter;
+
+    @Override
+    public void load(String corpus, int megabytes, boolean tokenize) throws IOException {
+        text = Corpus.text(corpus, megabytes);
+        tokenizer = (tokenize ? new Tokenizer(text) : null);
+    }
+
+    @Override
+    public Object tokenize(){ return new Tokenizer(text); }
+
+    @Override
+    public Object found(String keyword, boolean exact, boolean caseMatch){
+        return tokenizer.found(keyword, exact, caseMatch);
+    }
+
+    @Override
+    public Object wordListInMap(String keywords, boolean exact){
+        tokenizer.searchResults.clear(); //measure the search, not the remembered result
+        Search search = new Search(tokenizer, keywords, SearchType.WHOLE_DOCUMENT, Color.YELLOW, exact, false);
+        search.wordListInMap();
+        return search.foundWords;
+    }
+
+    @Override
+    public void searchEach(String keywords, String type){
+        SearchType searchType = SearchType.valueOf(type);
+        sentences = searchType == SearchType.SENTENCES;
+        searches.clear();
+        for (String keyword : keywords.split(" ")) {
+            Search search = new Search(tokenizer, keyword, searchType, Color.YELLOW, true, false);
+            search.wordListInMap();
+            searches.add(search);
+        }
+    }
+
+    @Override
+    public Object intersect(){
+        tokenizer.highlightFlags.clear();
+        for (Search search : searches) { search.highlightedWords.clear(); }
+
+        if(sentences){ Search.sentenceSearch(searches); }
+        else { Search.paragraphSearch(searches); }
+        return tokenizer.highlightFlags;
+    }
+
+    //highlights a common word everywhere and two others where they share a paragraph
+    @Override
+    public void highlight(){
+        tokenizer.highlightFlags.clear();
+        Search.highlightAll(Arrays.asList(
+                new Search(tokenizer, "the", SearchType.WHOLE_DOCUMENT, Color.YELLOW, true, false),
+                new Search(tokenizer, "search", SearchType.PARAGRAPH, Color.CYAN, true, false),
+                new Search(tokenizer, "document", SearchType.PARAGRAPH, Color.PINK, true, false)));
+        exporter = new Export(tokenizer, "Benchmark", text, null);
+    }
+
+    @Override
+    public long exportHtml() throws IOException {
+        CountingWriter out = new CountingWriter();
+        exporter.writeHtml(out, null);
+        return out.count;
+    }
+
+} // Workloads
@@ -0,0 +1,53 @@
+/* last update : 10/18/2026
+BenchMain class - runs the benchmarks with the gc profiler, so allocation rate is reported beside throughput
+usage: java bench.BenchMain [JMH options] [benchmark regex]   - every benchmark when no regex is given
+results are also written as JSON to bench/results, unless -rff names another file
+ */
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+public class BenchMain {
+
+    //main method
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions command = new CommandLineOptions(args);
+        File project = projectDirectory();
+
+        //the forked JVMs read the real text from the file found here, unless one was named with -Dbench.text
+        String realText = System.getProperty(Workload.TEXT_PROPERTY,
+                new File(project, Workload.DEFAULT_TEXT).getAbsolutePath());
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(command)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsPrepend("-D" + Workload.TEXT_PROPERTY + "=" + realText);
+        if(command.getIncludes().isEmpty()){ options.include("bench\\..*Benchmark\\."); }
+        if(!command.getResult().hasValue()){
+            File results = new File(project, "bench" + File.separator + "results");
+            results.mkdirs();
+            options.resultFormat(ResultFormatType.JSON)
+                    .result(new File(results, "results-" + System.currentTimeMillis() + ".json").getPath());
+        }
+
+        new Runner(options.build()).run();
+    } // main
+
+    /** @return directory holding the user guide, the working directory or its parent when run from bench */
+    private static File projectDirectory(){
+        File here = new File("").getAbsoluteFile();
+        if(!new File(here, Workload.DEFAULT_TEXT).isFile() && here.getParentFile() != null
+                && new File(here.getParentFile(), Workload.DEFAULT_TEXT).isFile()){
+            return here.getParentFile();
+        }
+        return here;
+    }
+
+} // BenchMain
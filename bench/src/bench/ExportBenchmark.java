@@ -0,0 +1,35 @@
+/* last update : 10/18/2026
+ExportBenchmark class - writing a highlighted corpus as HTML with Export, to a writer that only counts characters
+ */
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+
+    @Setup(Level.Trial)
+    public void highlight(TokenizedCorpus c){ c.workload.highlight(); }
+
+    @Benchmark
+    public long exportHtml(TokenizedCorpus c) throws IOException { return c.workload.exportHtml(); }
+
+} // ExportBenchmark
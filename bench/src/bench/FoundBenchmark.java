@@ -0,0 +1,37 @@
+/* last update : 10/18/2026
+FoundBenchmark class - finding one keyword with Tokenizer.found, in every exact match and match case combination
+"the" is a common word found through one term's postings, "ation" only appears inside other words
+ */
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class FoundBenchmark {
+    @Param({"the", "ation"})
+    public String keyword;
+    @Param({"true", "false"})
+    public boolean exact;
+    @Param({"true", "false"})
+    public boolean caseMatch;
+
+    @Benchmark
+    public Object found(TokenizedCorpus c){ return c.workload.found(keyword, exact, caseMatch); }
+
+} // FoundBenchmark
@@ -0,0 +1,40 @@
+/* last update : 10/18/2026
+IntersectionBenchmark class - keeping the sentences or paragraphs every search has a match in, and flagging their words
+the searches are run once per trial, each call only intersects and highlights
+ */
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class IntersectionBenchmark {
+    @Param({"SENTENCES", "PARAGRAPH"})
+    public String type;
+    @Param({"the of and", "search document"})
+    public String keywords; // one search per keyword
+
+    @Setup(Level.Trial)
+    public void search(TokenizedCorpus c){ c.workload.searchEach(keywords, type); }
+
+    @Benchmark
+    public Object intersect(TokenizedCorpus c){ return c.workload.intersect(); }
+
+} // IntersectionBenchmark
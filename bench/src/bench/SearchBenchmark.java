@@ -0,0 +1,34 @@
+/* last update : 10/18/2026
+SearchBenchmark class - finding a phrase of several keywords with Search.wordListInMap
+ */
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+    @Param({"of the", "the search of", "in the document"})
+    public String keywords;
+    @Param({"true", "false"})
+    public boolean exact;
+
+    @Benchmark
+    public Object wordListInMap(TokenizedCorpus c){ return c.workload.wordListInMap(keywords, exact); }
+
+} // SearchBenchmark
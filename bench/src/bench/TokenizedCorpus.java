@@ -0,0 +1,29 @@
+/* last update : 10/18/2026
+TokenizedCorpus class - benchmark state holding a corpus and its Tokenizer, made once per trial
+ */
+package bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+
+@State(Scope.Benchmark)
+public class TokenizedCorpus {
+    @Param({"synthetic", "real"})
+    public String corpus;
+    @Param({"1", "10", "100"})
+    public int megabytes; // millions of characters
+
+    Workload workload;
+
+    @Setup(Level.Trial)
+    public void tokenize() throws IOException {
+        workload = Workload.create();
+        workload.load(corpus, megabytes, true);
+    }
+
+} // TokenizedCorpus
@@ -0,0 +1,45 @@
+/* last update : 10/18/2026
+TokenizerBenchmark class - tokenizing a whole corpus, as locking a document does
+ */
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class TokenizerBenchmark {
+    @Param({"synthetic", "real"})
+    public String corpus;
+    @Param({"1", "10", "100"})
+    public int megabytes; // millions of characters
+
+    private Workload workload;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        workload = Workload.create();
+        workload.load(corpus, megabytes, false);
+    }
+
+    @Benchmark
+    public Object tokenize(){ return workload.tokenize(); }
+
+} // TokenizerBenchmark
@@ -0,0 +1,54 @@
+/* last update : 10/18/2026
+Workload interface - what the benchmarks measure, implemented by Workloads next to the application classes
+JMH only runs benchmarks in a named package, and a named package can not refer to classes in the default package,
+so the benchmarks reach Tokenizer, Search and Export through this interface
+ */
+package bench;
+
+import java.io.IOException;
+
+public interface Workload {
+    String TEXT_PROPERTY = "bench.text"; // file to read the real text from
+    String DEFAULT_TEXT = "out/artifacts/ConTextComplete_jar/ConText_USER_GUIDE.pdf";
+
+    /** @return a new, empty Workloads */
+    static Workload create(){
+        try { return (Workload) Class.forName("Workloads").getDeclaredConstructor().newInstance(); }
+        catch (ReflectiveOperationException e) { throw new IllegalStateException("Workloads is not on the class path", e); }
+    }
+
+    /** @param corpus "synthetic" or "real"
+     * @param megabytes millions of characters
+     * @param tokenize true to also tokenize the text once, for the benchmarks that search it
+     */
+    void load(String corpus, int megabytes, boolean tokenize) throws IOException;
+
+    /** @return new Tokenizer of the whole text */
+    Object tokenize();
+
+    /** @param keyword search term
+     * @param exact exact match flag
+     * @param caseMatch match case flag
+     * @return word indexes of the keyword, from Tokenizer.found */
+    Object found(String keyword, boolean exact, boolean caseMatch);
+
+    /** @param keywords phrase to search the whole document for, without match case
+     * @param exact exact match flag
+     * @return word indexes of the phrases found, searched again even if the Tokenizer remembers them */
+    Object wordListInMap(String keywords, boolean exact);
+
+    /** runs one search per keyword, for intersect
+     * @param keywords keywords separated by spaces
+     * @param type name of the SearchType, SENTENCES or PARAGRAPH */
+    void searchEach(String keywords, String type);
+
+    /** @return highlight flags after flagging the words of the searches in the sentences or paragraphs they all match */
+    Object intersect();
+
+    //highlights the text for exportHtml
+    void highlight();
+
+    /** @return number of characters of HTML written by Export */
+    long exportHtml() throws IOException;
+
+} // Workload
@@ -0,0 +1,299 @@
+/* last update : 10/18/2026
+Batch class - runs searches over many files without the window, for scheduled jobs
+usage: java -cp ConTextComplete.jar Batch [options] path...
+calls Import to load each file, Search to flag the words to highlight, and Export for HTML output
+no dialogs are shown and nothing is opened, so it runs with java.awt.headless=true
+ */
+import java.awt.Color;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class Batch {
+    static final String USAGE = String.join(System.lineSeparator(),
+            "usage: java Batch [options] path...",
+            "  path                 .txt or .pdf file, directory to search for them, or @file listing one path per line",
+            "  -s, --search SPEC    keywords|TYPE|FLAGS|COLOR, may be repeated",
+            "                       TYPE is WHOLE_DOCUMENT (default), SENTENCES, PARAGRAPH or PROXIMITY",
+            "                       FLAGS holds e for exact match and c for match case, COLOR is #rrggbb (default #ffff00)",
+            "                       keywords may join phrases with AND, OR, NOT and parentheses",
+            "                       PROXIMITY finds the keywords within NEAR/k words of each other (default NEAR/10)",
+            "  -f, --format FORMAT  jsonl (default), one line of results per file, or html, one export per file",
+            "  -o, --out PATH       jsonl file (default standard output) or html directory (default current directory)",
+            "  -t, --threads N      number of files searched at once (default number of processors)",
+            "  -i, --index          read and write index files, so searching the same file again skips tokenizing it");
+
+    private final List<Spec> specs = new ArrayList<>();
+    private final List<String> paths = new ArrayList<>();
+    private boolean html = false;
+    private String out;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean index = false; // use index files, off by default so a run leaves nothing behind
+    private final ConcurrentHashMap<String, AtomicInteger> exportNames = new ConcurrentHashMap<>(); // uses of each name
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /** @param args command line arguments, see USAGE
+     * @throws IllegalArgumentException if the arguments are not understood
+     */
+    Batch(String[] args){
+        for(int i = 0; i < args.length; i++){
+            String arg = args[i];
+            switch (arg) {
+                case "-s": case "--search": specs.add(new Spec(value(args, ++i, arg))); break;
+                case "-o": case "--out": out = value(args, ++i, arg); break;
+                case "-f": case "--format":
+                    String format = value(args, ++i, arg);
+                    if(!format.equals("jsonl") && !format.equals("html")){
+                        throw new IllegalArgumentException("Unknown format " + format);
+                    }
+                    html = format.equals("html");
+                    break;
+                case "-i": case "--index": index = true; break;
+                case "-t": case "--threads":
+                    try { threads = Integer.parseInt(value(args, ++i, arg)); }
+                    catch (NumberFormatException e) { throw new IllegalArgumentException("Threads must be a number"); }
+                    if(threads < 1){ throw new IllegalArgumentException("Threads must be at least 1"); }
+                    break;
+                default:
+                    if(arg.startsWith("-")){ throw new IllegalArgumentException("Unknown option " + arg); }
+                    paths.add(arg);
+            }
+        }
+        if(specs.isEmpty()){ throw new IllegalArgumentException("No search given"); }
+        if(paths.isEmpty()){ throw new IllegalArgumentException("No file given"); }
+        if(!index){ IndexFile.enabled = false; }
+    }
+
+    /** @param args command line arguments
+     * @param i index of the option's value
+     * @param option option the value belongs to
+     * @return the value */
+    private static String value(String[] args, int i, String option){
+        if(i >= args.length){ throw new IllegalArgumentException("Missing value for " + option); }
+        return args[i];
+    }
+
+    //main method - exit status is 0 if every file was searched, 1 if some failed, 2 if the arguments are wrong
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        Batch batch;
+        try { batch = new Batch(args); }
+        catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try { System.exit(batch.run() ? 0 : 1); }
+        catch (IOException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+    } // main
+
+    /** searches every file on a pool of worker threads, at most a few files waiting at a time
+     * @return true if every file was searched */
+    boolean run() throws IOException {
+        List<File> files = files();
+        File outDirectory = new File(out == null ? "." : out);
+        if(html && !outDirectory.isDirectory() && !outDirectory.mkdirs()){
+            throw new IOException("Cannot create directory " + outDirectory);
+        }
+
+        Writer jsonl = null;
+        if(!html){
+            jsonl = new BufferedWriter(new OutputStreamWriter(
+                    out == null ? System.out : new FileOutputStream(out), StandardCharsets.UTF_8), 1 << 16);
+        }
+
+        //a full queue makes the submitting thread search the next file itself, so files are not all queued at once
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        Writer results = jsonl;
+        for (File file : files) { pool.execute(() -> search(file, results, outDirectory)); }
+        pool.shutdown();
+        try { pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS); }
+        catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+
+        if(jsonl != null){
+            if(out == null){ jsonl.flush(); }
+            else { jsonl.close(); }
+        }
+        System.err.println(files.size() + " files searched, " + failed.get() + " failed");
+        return failed.get() == 0;
+    }
+
+    /** @return the .txt and .pdf files named by the paths, directories searched in name order */
+    private List<File> files() throws IOException {
+        List<String> named = new ArrayList<>();
+        for (String path : paths) {
+            if(path.startsWith("@")){
+                for (String line : Files.readAllLines(Paths.get(path.substring(1)), StandardCharsets.UTF_8)) {
+                    if(!line.trim().isEmpty()){ named.add(line.trim()); }
+                }
+            }
+            else { named.add(path); }
+        }
+
+        List<File> files = new ArrayList<>();
+        for (String path : named) {
+            File file = new File(path);
+            if(file.isDirectory()){
+                try (Stream<Path> walk = Files.walk(file.toPath())) {
+                    files.addAll(walk.filter(p -> Files.isRegularFile(p) && supported(p.toString()))
+                            .sorted().map(Path::toFile).collect(Collectors.toList()));
+                }
+            }
+            else { files.add(file); }
+        }
+        return files;
+    }
+
+    /** @param name file name
+     * @return true if the file can be loaded */
+    private static boolean supported(String name){
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".txt") || lower.endsWith(".pdf");
+    }
+
+    /** runs on a worker thread - loads one file, runs the searches and writes its results
+     * @param file file to search
+     * @param jsonl where result lines go, null when writing html
+     * @param outDirectory where html exports go
+     */
+    private void search(File file, Writer jsonl, File outDirectory){
+        try {
+            if(!supported(file.getName())){ throw new IOException("This file format is not currently supported."); }
+            Import loaded = (file.getName().toLowerCase(Locale.ROOT).endsWith(".pdf")
+                    ? Import.pdf(file, null, 1) : Import.text(file, null));
+            Tokenizer tokenizer = loaded.tokenizer;
+
+            List<Search> searches = new ArrayList<>();
+            for (Spec spec : specs) {
+                searches.add(new Search(tokenizer, spec.keywords, spec.type, spec.color, spec.exact, spec.caseMatch));
+            }
+            Search.highlightAll(searches);
+
+            if(jsonl == null){
+                Export exporter = new Export(tokenizer, file.getName(), ChunkedContent.text(loaded.document), null);
+                exporter.exportHtml(new File(outDirectory, exportName(file)), null);
+            }
+            else {
+                String line = resultLine(file, tokenizer, searches);
+                synchronized (jsonl) {
+                    jsonl.write(line);
+                    jsonl.write('\n');
+                }
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            System.err.println(file + ": " + e);
+        }
+    }
+
+    /** @param file file being exported
+     * @return name for its html export, numbered if another file of the same name was exported */
+    private String exportName(File file){
+        int uses = exportNames.computeIfAbsent(file.getName(), n -> new AtomicInteger()).getAndIncrement();
+        return file.getName() + (uses == 0 ? "" : "-" + uses) + ".html";
+    }
+
+    /** @param file file searched
+     * @param tokenizer tokens of the file
+     * @param searches searches run over it
+     * @return one JSON object with the file's word count and, for each search, the offsets of its highlighted words
+     */
+    private static String resultLine(File file, Tokenizer tokenizer, List<Search> searches){
+        StringBuilder line = new StringBuilder();
+        line.append("{\"file\":").append(quote(file.getPath()))
+                .append(",\"words\":").append(tokenizer.wordCount())
+                .append(",\"found\":").append(tokenizer.highlightFlags.cardinality())
+                .append(",\"searches\":[");
+
+        for (int s = 0; s < searches.size(); s++) {
+            Search search = searches.get(s);
+            IntList words = search.highlightedWords;
+            if(s > 0){ line.append(','); }
+            line.append("{\"keywords\":").append(quote(String.join(" ", search.keywords)))
+                    .append(",\"type\":\"").append(search.searchType).append('"')
+                    .append(",\"exact\":").append(search.exactMatch)
+                    .append(",\"case\":").append(search.caseMatch)
+                    .append(",\"found\":").append(words.size())
+                    .append(",\"offsets\":[");
+            for (int k = 0; k < words.size(); k++) {
+                if(k > 0){ line.append(','); }
+                int word = words.get(k);
+                line.append(tokenizer.wordStarts.get(word)).append(',').append(tokenizer.wordEnds.get(word));
+            }
+            line.append("]}");
+        }
+        return line.append("]}").toString();
+    }
+
+    /** @param text any text
+     * @return the text as a JSON string */
+    private static String quote(String text){
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if(c == '"' || c == '\\'){ quoted.append('\\').append(c); }
+            else if(c < ' '){ quoted.append(String.format("\\u%04x", (int) c)); }
+            else { quoted.append(c); }
+        }
+        return quoted.append('"').toString();
+    }
+
+    //one search from the command line - keywords|TYPE|FLAGS|COLOR
+    private static class Spec {
+        final String keywords;
+        final SearchType type;
+        final boolean exact, caseMatch;
+        final Color color;
+
+        /** @param spec search as given after --search
+         * @throws IllegalArgumentException if a part is not understood
+         */
+        Spec(String spec){
+            String[] parts = spec.split("\\|", -1);
+            if(parts.length > 4){ throw new IllegalArgumentException("Too many parts in search " + spec); }
+            keywords = parts[0];
+
+            String typeName = (parts.length > 1 && !parts[1].isEmpty() ? parts[1] : "WHOLE_DOCUMENT");
+            try { type = SearchType.valueOf(typeName.toUpperCase(Locale.ROOT)); }
+            catch (IllegalArgumentException e) { throw new IllegalArgumentException("Unknown search type " + typeName); }
+
+            String flags = (parts.length > 2 ? parts[2] : "");
+            if(!flags.matches("[ec]*")){ throw new IllegalArgumentException("Unknown flags " + flags); }
+            exact = flags.contains("e");
+            caseMatch = flags.contains("c");
+
+            String colorName = (parts.length > 3 && !parts[3].isEmpty() ? parts[3] : "#ffff00");
+            try { color = Color.decode(colorName); }
+            catch (NumberFormatException e) { throw new IllegalArgumentException("Unknown color " + colorName); }
+
+            //a query or NEAR/k that is not well formed is reported now rather than once per file
+            Search.check(keywords, type);
+        }
+    } // Spec
+
+} // Batch
@@ -0,0 +1,198 @@
+/* last update : 10/18/2026
+BulkHighlighter class - paints every highlighted word of the document through one highlight
+neighbouring words of the same color in the same paragraph are merged into one range before painting
+one painter is kept per color, and the text area only repaints once when the ranges are installed
+ranges follow edits to the document, the way highlights placed one word at a time did
+only the part of the document in the viewport, plus a margin, is covered by the highlight - it moves on scrolling
+ */
+import javax.swing.JViewport;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Document;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.LayeredHighlighter;
+import javax.swing.text.View;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class BulkHighlighter extends LayeredHighlighter.LayerPainter implements DocumentListener {
+    private final JTextComponent editor;
+    private final JViewport viewport; // part of the text area on screen
+    private final HashMap<Color, DefaultHighlighter.DefaultHighlightPainter> painters = new HashMap<>();
+    private final List<DefaultHighlighter.DefaultHighlightPainter> rangePainters = new ArrayList<>(); // of each range
+    private final IntList rangeStarts = new IntList(), rangeEnds = new IntList(); // ascending, not overlapping
+    private Document document; // document the ranges are in, null when none are installed
+    private Object tag; // highlight covering the viewport and margin, null when none is installed
+    private int windowStart, windowEnd; // part of the document the highlight covers
+
+    /** @param e text area to highlight
+     * @param v viewport of the scroll pane showing the text area
+     */
+    BulkHighlighter(JTextComponent e, JViewport v){
+        editor = e;
+        viewport = v;
+        viewport.addChangeListener(c -> followViewport());
+    }
+
+    /** replaces the installed ranges with the highlighted words of a Tokenizer
+     *  the caller removes the text area's other highlights first if they should go
+     * @param t Tokenizer whose highlight flags and colors are shown
+     * @param view sentences or paragraphs only view shown in the text area, null when showing all text
+     * @return number of highlighted words in the whole document
+     */
+    int install(Tokenizer t, FilteredView view){
+        clear();
+
+        int count = 0, lastWord = -2;
+        for(int w = t.highlightFlags.nextSetBit(0); w >= 0; w = t.highlightFlags.nextSetBit(w + 1)){
+            count++;
+            int start = t.wordStarts.get(w), end = t.wordEnds.get(w);
+            if(view != null){
+                int viewStart = view.toView(start);
+                if(viewStart < 0){ continue; } //word is not in the filtered view
+                end += viewStart - start;
+                start = viewStart;
+            }
+
+            Color color = t.highlightColors[w];
+            DefaultHighlighter.DefaultHighlightPainter painter = painters.computeIfAbsent(color,
+                    c -> new DefaultHighlighter.DefaultHighlightPainter(c));
+
+            //the next word of the same color and paragraph extends the last range over the space between them
+            int last = rangeStarts.size() - 1;
+            if(w == lastWord + 1 && last >= 0 && rangePainters.get(last) == painter
+                    && t.wordParagraphs.get(w) == t.wordParagraphs.get(lastWord)){
+                rangeEnds.set(last, end);
+            }
+            else {
+                rangeStarts.add(start);
+                rangeEnds.add(end);
+                rangePainters.add(painter);
+            }
+            lastWord = w;
+        }
+
+        if(!rangeStarts.isEmpty()){
+            document = editor.getDocument();
+            document.addDocumentListener(this);
+            followViewport();
+        }
+        return count;
+    }
+
+    //moves the highlight once the viewport comes within one screen of its edge
+    private void followViewport(){
+        if(document == null || document != editor.getDocument()){ return; } //nothing shown, or being replaced
+
+        Rectangle shown = viewport.getViewRect();
+        int length = document.getLength(), start, end;
+        if(shown.height <= 0){ start = 0; end = length; } //not on screen yet, cover everything
+        else {
+            start = offsetAt(shown.x, shown.y - shown.height, 0);
+            end = Math.min(offsetAt(shown.x + shown.width, shown.y + 2 * shown.height, length) + 1, length);
+            if(tag != null && start >= windowStart && end <= windowEnd){ return; }
+
+            start = offsetAt(shown.x, shown.y - 2 * shown.height, 0);
+            end = Math.min(offsetAt(shown.x + shown.width, shown.y + 3 * shown.height, length) + 1, length);
+        }
+
+        windowStart = start;
+        windowEnd = end;
+        try {
+            if(tag == null){ tag = editor.getHighlighter().addHighlight(start, end, this); }
+            else { editor.getHighlighter().changeHighlight(tag, start, end); }
+        }
+        catch (BadLocationException e) {
+            new ErrorClass(ErrorClass.ErrorType.UNKNOWN_ERROR, "Highlight Error", e.toString());
+        }
+    }
+
+    /** @param x horizontal position in the text area
+     * @param y vertical position in the text area, may be outside it
+     * @param fallback offset to use when there is no text at that point
+     * @return offset of the character nearest the point */
+    private int offsetAt(int x, int y, int fallback){
+        int offset = editor.viewToModel2D(new Point(x, Math.max(0, y)));
+        return (offset < 0 ? fallback : offset);
+    }
+
+    //forgets the installed ranges, the highlight itself goes with the text area's removeAllHighlights
+    void clear(){
+        if(document != null){ document.removeDocumentListener(this); }
+        document = null;
+        tag = null;
+        rangeStarts.clear();
+        rangeEnds.clear();
+        rangePainters.clear();
+    }
+
+    @Override
+    public void paint(Graphics g, int p0, int p1, Shape bounds, JTextComponent c){
+        for(int r = firstRange(p0); r < rangeStarts.size() && rangeStarts.get(r) < p1; r++){
+            int start = Math.max(p0, rangeStarts.get(r)), end = Math.min(p1, rangeEnds.get(r));
+            if(start < end){ rangePainters.get(r).paint(g, start, end, bounds, c); }
+        }
+    }
+
+    //called for each line the text area paints, with the part of the document on that line
+    @Override
+    public Shape paintLayer(Graphics g, int offs0, int offs1, Shape bounds, JTextComponent c, View view){
+        Rectangle painted = null;
+        for(int r = firstRange(offs0); r < rangeStarts.size() && rangeStarts.get(r) < offs1; r++){
+            int start = Math.max(offs0, rangeStarts.get(r)), end = Math.min(offs1, rangeEnds.get(r));
+            if(start >= end){ continue; }
+
+            Shape shape = rangePainters.get(r).paintLayer(g, start, end, bounds, c, view);
+            if(shape != null){
+                if(painted == null){ painted = shape.getBounds(); }
+                else { painted.add(shape.getBounds()); }
+            }
+        }
+        return painted;
+    }
+
+    /** @param offset index in the document
+     * @return index of the first range ending after offset */
+    private int firstRange(int offset){ return rangeEnds.firstAtLeast(offset + 1); }
+
+    //ranges at or after an insert move with the text, a range the insert falls inside grows
+    @Override
+    public void insertUpdate(DocumentEvent e){
+        int offset = e.getOffset(), length = e.getLength();
+        for(int r = firstRange(offset - 1); r < rangeStarts.size(); r++){
+            if(rangeStarts.get(r) >= offset){ rangeStarts.set(r, rangeStarts.get(r) + length); }
+            rangeEnds.set(r, rangeEnds.get(r) + length);
+        }
+    }
+
+    //ranges after a removal move back, the removed part of a range goes with it
+    @Override
+    public void removeUpdate(DocumentEvent e){
+        int offset = e.getOffset(), end = offset + e.getLength();
+        for(int r = firstRange(offset); r < rangeStarts.size(); r++){
+            rangeStarts.set(r, shiftForRemove(rangeStarts.get(r), offset, end));
+            rangeEnds.set(r, shiftForRemove(rangeEnds.get(r), offset, end));
+        }
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e){ }
+
+    /** @param position offset of a range start or end
+     * @param from index of first removed character
+     * @param to index after last removed character
+     * @return offset after the removal */
+    private static int shiftForRemove(int position, int from, int to){
+        if(position >= to){ return position - (to - from); }
+        return Math.min(position, from);
+    }
+
+} // BulkHighlighter
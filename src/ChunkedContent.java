@@ -0,0 +1,337 @@
+/* last update : 10/18/2026
+ChunkedContent class - document text stored in fixed size chunks instead of one gap buffer
+an edit only moves characters within the chunks it touches, and chunks can live outside the Java heap
+the text area, Tokenizer and Export all read this one copy - Tokenizer and Export through text(), never getText()
+positions follow the same rules as the contents built into Swing
+ */
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.Document;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.text.StyleContext;
+import javax.swing.text.StyledDocument;
+import javax.swing.undo.UndoableEdit;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ChunkedContent implements AbstractDocument.Content {
+    static final int CHUNK = 1 << 16; // most characters in one chunk
+    static final int OFF_HEAP_SIZE = 1 << 26; // documents expected to reach this many characters are kept off heap
+
+    private final boolean offHeap; // chunks are direct buffers rather than char arrays
+    private final List<CharBuffer> chunks = new ArrayList<>(); // text, CHUNK characters of room each
+    private final IntList chunkStarts = new IntList(), chunkLengths = new IntList();
+    private int length = 0; // number of characters, including the "\n" every document ends with
+
+    //positions handed out, sorted by offset - each is dropped once its Position is no longer used
+    private final List<Mark> marks = new ArrayList<>();
+    private final ReferenceQueue<StickyPosition> unusedMarks = new ReferenceQueue<>();
+    private int unusedCount = 0;
+
+    /** @param offHeap true to keep the text in direct buffers outside the Java heap */
+    ChunkedContent(boolean offHeap){
+        this.offHeap = offHeap;
+        addChunk(0);
+        try { insertString(0, "\n"); }
+        catch (BadLocationException e) { throw new IllegalStateException(e); } //offset 0 is always valid
+    }
+
+    /** @param expectedLength number of characters the document is expected to hold, 0 if unknown
+     * @return empty document backed by a ChunkedContent, off heap if it is expected to be large */
+    static StyledDocument newDocument(long expectedLength){
+        ChunkedContent content = new ChunkedContent(expectedLength >= OFF_HEAP_SIZE);
+        StyledDocument document = new DefaultStyledDocument(content, new StyleContext());
+        document.putProperty(ChunkedContent.class, content);
+        return document;
+    }
+
+    /** @param document any document
+     * @return the document's text without copying it if it is backed by a ChunkedContent,
+     *          a copy from getText otherwise. The sequence follows later edits only in the first case
+     */
+    static CharSequence text(Document document){
+        Object content = document.getProperty(ChunkedContent.class);
+        if(content instanceof ChunkedContent){ return ((ChunkedContent) content).new Text(); }
+
+        Segment segment = new Segment();
+        try { document.getText(0, document.getLength(), segment); }
+        catch (BadLocationException e) { throw new IllegalStateException(e); } //whole document is always valid
+        return segment;
+    }
+
+    @Override
+    public int length(){ return length; }
+
+    @Override
+    public UndoableEdit insertString(int where, String str) throws BadLocationException {
+        if(where < 0 || where > length){ throw new BadLocationException("Invalid insert", where); }
+        if(str.isEmpty()){ return null; }
+
+        //characters after the insert point in its chunk are set aside and written back after the new text
+        int c = chunkAt(where), local = where - chunkStarts.get(c), oldLength = chunkLengths.get(c);
+        char[] tail = new char[oldLength - local];
+        read(chunks.get(c), local, tail, 0, tail.length);
+        chunkLengths.set(c, local);
+
+        c = write(c, str.toCharArray(), str.length());
+        write(c, tail, tail.length);
+
+        length += str.length();
+        updateStarts();
+
+        //marks at the insert point move with the text after it, except a mark at offset 0
+        for(int m = firstMark(where == 0 ? 1 : where); m < marks.size(); m++){ marks.get(m).offset += str.length(); }
+        return null; //the text area keeps no undo history
+    }
+
+    @Override
+    public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+        if(where < 0 || nitems < 0 || where + nitems >= length){ throw new BadLocationException("Invalid remove", where); }
+        if(nitems == 0){ return null; }
+
+        //cut the range out of each chunk it covers, last chunk first so earlier starts stay valid
+        int end = where + nitems;
+        for(int c = chunkAt(end - 1); c >= 0 && chunkStarts.get(c) + chunkLengths.get(c) > where; c--){
+            int start = chunkStarts.get(c), from = Math.max(where, start) - start,
+                    to = Math.min(end, start + chunkLengths.get(c)) - start;
+            move(chunks.get(c), to, from, chunkLengths.get(c) - to);
+            chunkLengths.set(c, chunkLengths.get(c) - (to - from));
+            if(chunkLengths.get(c) == 0 && chunks.size() > 1){ removeChunk(c); }
+        }
+        updateStarts();
+
+        //a chunk left small is merged into the next one when both fit in one chunk
+        int c = Math.min(chunkAt(where), chunks.size() - 1);
+        if(c + 1 < chunks.size() && chunkLengths.get(c) + chunkLengths.get(c + 1) <= CHUNK){
+            char[] next = new char[chunkLengths.get(c + 1)];
+            read(chunks.get(c + 1), 0, next, 0, next.length);
+            removeChunk(c + 1);
+            write(c, next, next.length);
+            updateStarts();
+        }
+        length -= nitems;
+
+        //marks inside the removed range collapse to its start, later marks move back
+        for(int m = firstMark(where); m < marks.size(); m++){
+            Mark mark = marks.get(m);
+            mark.offset = (mark.offset >= end ? mark.offset - nitems : where);
+        }
+        return null;
+    }
+
+    @Override
+    public String getString(int where, int len) throws BadLocationException {
+        Segment segment = new Segment();
+        getChars(where, len, segment);
+        return new String(segment.array, segment.offset, segment.count);
+    }
+
+    @Override
+    public void getChars(int where, int len, Segment txt) throws BadLocationException {
+        if(where < 0 || len < 0 || where + len > length){ throw new BadLocationException("Invalid location", where + len); }
+
+        //text inside one heap chunk is shared rather than copied, as is the first chunk when partial returns are allowed
+        int c = chunkAt(where), local = where - chunkStarts.get(c);
+        CharBuffer chunk = chunks.get(c);
+        if(chunk.hasArray() && (local + len <= chunkLengths.get(c) || txt.isPartialReturn())){
+            txt.array = chunk.array();
+            txt.offset = chunk.arrayOffset() + local;
+            txt.count = Math.min(len, chunkLengths.get(c) - local);
+            return;
+        }
+
+        char[] copy = new char[len];
+        for(int done = 0; done < len; c++, local = 0){
+            int n = Math.min(len - done, chunkLengths.get(c) - local);
+            read(chunks.get(c), local, copy, done, n);
+            done += n;
+        }
+        txt.array = copy;
+        txt.offset = 0;
+        txt.count = len;
+    }
+
+    @Override
+    public Position createPosition(int offset) throws BadLocationException {
+        if(offset < 0 || offset > length){ throw new BadLocationException("Invalid position", offset); }
+        dropUnusedMarks();
+
+        //a live mark at the same offset is shared
+        int m = firstMark(offset);
+        if(m < marks.size() && marks.get(m).offset == offset){
+            StickyPosition position = marks.get(m).get();
+            if(position != null){ return position; }
+        }
+
+        StickyPosition position = new StickyPosition();
+        position.mark = new Mark(position, offset, unusedMarks);
+        marks.add(m, position.mark);
+        return position;
+    }
+
+    /** @param offset index of a character, or the length to get the last chunk
+     * @return index of the chunk holding it */
+    private int chunkAt(int offset){
+        int c = chunkStarts.firstAtLeast(offset + 1) - 1;
+        return Math.max(c, 0);
+    }
+
+    /** writes characters into chunk c after its current text, adding chunks after it as each one fills
+     * @param c index of chunk to start in
+     * @param text characters to write
+     * @param count number of characters to write
+     * @return index of the chunk holding the last character written
+     */
+    private int write(int c, char[] text, int count){
+        for(int done = 0; done < count; ){
+            if(chunkLengths.get(c) == CHUNK){ addChunk(++c); }
+            int used = chunkLengths.get(c), n = Math.min(count - done, CHUNK - used);
+            CharBuffer chunk = chunks.get(c).duplicate();
+            chunk.position(used);
+            chunk.put(text, done, n);
+            chunkLengths.set(c, used + n);
+            done += n;
+        }
+        return c;
+    }
+
+    //recomputes the start of every chunk from the lengths before it
+    private void updateStarts(){
+        chunkStarts.set(0, 0);
+        for(int c = 1; c < chunks.size(); c++){ chunkStarts.set(c, chunkStarts.get(c - 1) + chunkLengths.get(c - 1)); }
+    }
+
+    /** @param c index the new empty chunk takes, later chunks move up */
+    private void addChunk(int c){
+        chunks.add(c, offHeap ? ByteBuffer.allocateDirect(CHUNK * 2).asCharBuffer() : CharBuffer.allocate(CHUNK));
+        IntList value = new IntList(1);
+        value.add(0);
+        chunkLengths.replace(c, c, value, 0);
+        chunkStarts.replace(c, c, value, c == 0 ? 0 : chunkStarts.get(c - 1) + chunkLengths.get(c - 1));
+    }
+
+    /** @param c index of chunk to drop, later chunks move down */
+    private void removeChunk(int c){
+        chunks.remove(c);
+        chunkLengths.replace(c, c + 1, new IntList(1), 0);
+        chunkStarts.replace(c, c + 1, new IntList(1), 0);
+    }
+
+    /** @param chunk chunk to read
+     * @param from index in the chunk of the first character
+     * @param to array to copy into
+     * @param toOffset index in the array of the first character
+     * @param count number of characters
+     */
+    private static void read(CharBuffer chunk, int from, char[] to, int toOffset, int count){
+        CharBuffer source = chunk.duplicate();
+        source.position(from);
+        source.get(to, toOffset, count);
+    }
+
+    /** @param chunk chunk to change
+     * @param from index of first character to move
+     * @param to index the first character moves to
+     * @param count number of characters to move
+     */
+    private static void move(CharBuffer chunk, int from, int to, int count){
+        if(chunk.hasArray()){
+            System.arraycopy(chunk.array(), chunk.arrayOffset() + from, chunk.array(), chunk.arrayOffset() + to, count);
+            return;
+        }
+        char[] moved = new char[count];
+        read(chunk, from, moved, 0, count);
+        CharBuffer target = chunk.duplicate();
+        target.position(to);
+        target.put(moved);
+    }
+
+    /** @param offset offset to look for
+     * @return index of the first mark at or after offset */
+    private int firstMark(int offset){
+        int low = 0, high = marks.size();
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(marks.get(middle).offset < offset){ low = middle + 1; }
+            else { high = middle; }
+        }
+        return low;
+    }
+
+    //forgets marks whose Position was garbage collected, once they are a good share of the list
+    private void dropUnusedMarks(){
+        while(unusedMarks.poll() != null){ unusedCount++; }
+        if(unusedCount > 64 && unusedCount * 2 > marks.size()){
+            marks.removeIf(mark -> mark.get() == null);
+            unusedCount = 0;
+        }
+    }
+
+    //offset of a position, kept as long as the Position holding it is in use
+    private static class Mark extends WeakReference<StickyPosition> {
+        int offset;
+
+        Mark(StickyPosition position, int offset, ReferenceQueue<StickyPosition> queue){
+            super(position, queue);
+            this.offset = offset;
+        }
+    } // Mark
+
+    private static class StickyPosition implements Position {
+        Mark mark;
+
+        @Override
+        public int getOffset(){ return mark.offset; }
+
+        @Override
+        public String toString(){ return Integer.toString(getOffset()); }
+    } // StickyPosition
+
+    //the document text without its final "\n", read in place
+    //the chunk last read is kept so reading front to back finds each chunk once
+    private class Text implements CharSequence {
+        private Window window; // final fields only, so threads reading at once each see a whole window
+
+        @Override
+        public int length(){ return length - 1; }
+
+        @Override
+        public char charAt(int index){
+            Window w = window;
+            if(w == null || index < w.start || index >= w.end){
+                if(index < 0 || index >= length - 1){ throw new IndexOutOfBoundsException("index " + index); }
+                int c = chunkAt(index);
+                w = new Window(chunks.get(c), chunkStarts.get(c), chunkStarts.get(c) + chunkLengths.get(c));
+                window = w;
+            }
+            return w.chars.get(index - w.start);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end){
+            try { return getString(start, end - start); }
+            catch (BadLocationException e) { throw new IndexOutOfBoundsException(e.getMessage()); }
+        }
+
+        @Override
+        public String toString(){ return subSequence(0, length()).toString(); }
+    } // Text
+
+    private static class Window {
+        final CharBuffer chars;
+        final int start, end; // range of the document held by the chunk
+
+        Window(CharBuffer chars, int start, int end){
+            this.chars = chars;
+            this.start = start;
+            this.end = end;
+        }
+    } // Window
+
+} // ChunkedContent
@@ -1,47 +1,65 @@
-/* last update : 12/11/2021
+/* last update : 10/18/2026
 Export class - converts displayed data into external documents
+HTML is written front to back in one pass straight to the file, so it can run on a background thread
 called by Main
 calls ErrorClass to display error messages or get user input for document name
  */
 
 import java.awt.Color;
 import java.awt.Desktop;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.BufferedOutputStream;
 import java.io.FileWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.concurrent.CancellationException;
+import java.util.function.IntConsumer;
 
 public class Export {
 
     private final Tokenizer tokenizer;
     private final String htmlContent;
-    private final String originalContent;
+    private final CharSequence originalContent; // read in place, not copied
+    private final FilteredView view;
+    private final BitSet highlightFlags; // copy taken when the export starts, searches may run while it is written
+    private final Color[] highlightColors; // copy taken with the flags, so each flagged word keeps the color it had
+    private final char[] escapeBuffer = new char[8192]; // escaped text waiting to be written
 
     /** @param t tokenizer object instantiated from Main
      * @param fileName title to apply to HTML file
-     * @param o original text from display area
+     * @param o original text from display area, see ChunkedContent.text
+     * @param v sentences or paragraphs only view shown in display area, null when showing all text
      */
-    public Export(Tokenizer t, String fileName, String o) {
+    public Export(Tokenizer t, String fileName, CharSequence o, FilteredView v) {
 
         tokenizer = t;
+        view = v;
+        highlightFlags = (BitSet) t.highlightFlags.clone();
+        highlightColors = (t.highlightColors == null ? new Color[0] : t.highlightColors.clone());
 
         htmlContent = "<!DOCTYPE html><html lang='en'><head><meta charset='UTF-8'><meta http-equiv='X-UA-Compatible' "
                 + "content='IE=edge'><link rel='stylesheet' "
                 + "href='https://cdn.jsdelivr.net/npm/bootstrap@4.6.1/dist/css/bootstrap.min.css' "
                 + "integrity='sha384-zCbKRCUGaJDkqS1kPbPd7TveP5iyJE0EjAuZQTgFLD2ylzuqKfdKlfG/eSrtxUkn' "
                 + "crossorigin='anonymous'><meta name='viewport' content='width=device-width, initial-scale=1.0'>"
-                + "<title>" + fileName + "</title></head><body><div class='container mt-4'></p>";
+                + "<title>" + fileName.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                + "</title></head><body><div class='container mt-4'></p>";
 
         originalContent = o;
     }
 
     /**@param textOfFile text taken from displayed text area to be exported */
-    public Export(String textOfFile){
+    public Export(CharSequence textOfFile){
         tokenizer = new Tokenizer("");
+        highlightFlags = new BitSet();
+        highlightColors = new Color[0];
         htmlContent = "";
         originalContent = textOfFile;
+        view = null;
     }
 
     /**
@@ -56,8 +74,14 @@ public class Export {
 
             if (!path.equals("./tmp/-1.txt")) {
 
+                //written a piece at a time, so the text is never copied whole
                 FileWriter fileWriter = new FileWriter(path);
-                fileWriter.write(originalContent);
+                char[] piece = new char[8192];
+                for(int from = 0; from < originalContent.length(); from += piece.length){
+                    int n = Math.min(piece.length, originalContent.length() - from);
+                    for(int i = 0; i < n; i++){ piece[i] = originalContent.charAt(from + i); }
+                    fileWriter.write(piece, 0, n);
+                }
                 fileWriter.close();
 
                 Desktop.getDesktop().open(new File(path));
@@ -90,86 +114,136 @@ public class Export {
     }
 
     /**
-     * Export the document to html
-     * @return true if the export is successful
+     * Ask for the name of the HTML file to export to
+     * @return the file to export to, null if the user cancelled
      */
-    public boolean exportHtml() {
-        try {
-            //create the temp file and directory
-            String path = createPath(".html");
-
-            if (!path.endsWith("./tmp/-1.html")) {
-                File tempFile = new File(path);
-
-                //after the directory/files are created, generate the html
-                String content = getHtml();
-                FileOutputStream fos = new FileOutputStream(tempFile);
-                BufferedOutputStream bos = new BufferedOutputStream(fos);
-                byte[] data = content.getBytes(StandardCharsets.UTF_8);
+    public File htmlFile() {
+        String path = createPath(".html");
+        return (path.endsWith("/tmp/-1.html") ? null : new File(path));
+    }
 
-                bos.write(data);
-                bos.close();
-                fos.close();
+    /**
+     * Export the document to html, on a background thread - nothing is shown to the user
+     * @param file file to write, replaced if it exists
+     * @param progress told the percent of words written each time it changes, may be null
+     * @throws CancellationException if the thread is interrupted, the unfinished file is deleted
+     */
+    public void exportHtml(File file, IntConsumer progress) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8),
+                1 << 16)) {
+            writeHtml(out, progress);
+        }
+        catch (CancellationException e) {
+            file.delete();
+            throw e;
+        }
+    }
 
-                Desktop.getDesktop().open(new File(path));
-            }
-        } catch (Exception e) {
+    /**
+     * Open an exported file in the user's default application
+     * @param file exported file
+     */
+    public static void open(File file) {
+        try { Desktop.getDesktop().open(file); }
+        catch (IOException | UnsupportedOperationException e) {
             new ErrorClass(ErrorClass.ErrorType.UNKNOWN_ERROR, "WARNING", e.getMessage());
-            return false;
         }
-        return true;
     }
 
-    /** @return  string of displayed text with HTML tags for highlights*/
-    private String getHtml() {
-        final StringBuilder contentBuilder = new StringBuilder(originalContent);
-
-        int currentParagraph =
-                (tokenizer.allWords.size() > 0 ? tokenizer.allWords.get(tokenizer.allWords.size()-1).paragraph : 0);
+    /** @return number of highlighted words the export shows */
+    int highlightedCount(){ return highlightFlags.cardinality(); }
 
-        for(int i = tokenizer.allWords.size()-1; i >= 0; i--){
-
-            Tokenizer.Word word = tokenizer.allWords.get(i);
-
-            if(currentParagraph > word.paragraph){
+    /**
+     * Writes the displayed text with HTML tags for highlights and paragraph breaks, front to back in one pass
+     * @param out where the HTML goes, not closed
+     * @param progress told the percent of words written each time it changes, may be null
+     */
+    void writeHtml(Writer out, IntConsumer progress) throws IOException {
+        out.write(htmlContent);
+
+        int wordCount = tokenizer.wordCount(), written = 0, percentDone = -1, lastWord = -1;
+        for(int i = 0; i < wordCount; i++){
+            if((i & 0xFFF) == 0){
+                if(Thread.currentThread().isInterrupted()){ throw new CancellationException("Export cancelled"); }
+                int percent = (int) (100L * i / wordCount);
+                if(progress != null && percent != percentDone){ progress.accept(percent); }
+                percentDone = percent;
+            }
 
-                int wordLength = word.positionEnd-word.positionStart;
-                if(word.punctuation){ wordLength++; }
+            int positionStart = tokenizer.wordStarts.get(i), positionEnd = tokenizer.wordEnds.get(i);
 
-                contentBuilder.insert(word.positionStart + wordLength, "<br /><br />");
-                currentParagraph = word.paragraph;
+            //place words by their offset in the filtered view, if one is shown
+            if(view != null){
+                int viewStart = view.toView(positionStart);
+                if(viewStart < 0){ continue; } //word is not in the view
+                positionEnd += viewStart - positionStart;
+                positionStart = viewStart;
             }
 
-            if (word.highlightFlag){
+            //a blank line goes after the last shown word of each paragraph, past its punctuation
+            if(lastWord >= 0 && tokenizer.wordParagraphs.get(lastWord) != tokenizer.wordParagraphs.get(i)){
+                written = paragraphBreak(out, lastWord, written);
+            }
+            lastWord = i;
+
+            writeEscaped(out, originalContent, written, positionStart);
+            if(highlightFlags.get(i)){
+                Color highlightColor = highlightColors[i];
+                if(highlightColor == null) { highlightColor = Color.white; }
+                out.write(String.format("<span style='background-color:#%02x%02x%02x'>",
+                        highlightColor.getRed(), highlightColor.getGreen(), highlightColor.getBlue()));
+                writeEscaped(out, originalContent, positionStart, positionEnd);
+                out.write("</span>");
+            }
+            else { writeEscaped(out, originalContent, positionStart, positionEnd); }
+            written = positionEnd;
+        }
 
-                if(word.highlightColor == null) { word.highlightColor = Color.white; }
-                String color = String.format("<span style='background-color:#%02x%02x%02x'>",
-                        word.highlightColor.getRed(), word.highlightColor.getGreen(), word.highlightColor.getBlue()
-                );
+        writeEscaped(out, originalContent, written, originalContent.length());
+        out.write("</div></body></html>");
+        if(progress != null){ progress.accept(100); }
+    }
 
-                if(word.angleBrackets){
-                    String wordFix = word.textOfWord;
-                    wordFix = wordFix.replace("<", "&lt");
-                    wordFix = wordFix.replace(">", "&gt");
-                    wordFix = "</span>" + wordFix + color;
-                    contentBuilder.replace(word.positionStart, word.positionEnd, wordFix);
-                }
-                else { contentBuilder.insert(word.positionEnd, "</span>").insert(word.positionStart, color); }
+    /**
+     * @param out where the HTML goes
+     * @param word index of the last word of a paragraph
+     * @param written offset in the displayed text written so far
+     * @return offset written after the break
+     */
+    private int paragraphBreak(Writer out, int word, int written) throws IOException {
+        int end = tokenizer.wordEnds.get(word);
+        if(view != null){ end = view.toView(tokenizer.wordStarts.get(word)) + end - tokenizer.wordStarts.get(word); }
+        if(tokenizer.punctuationFlags.get(word)){ end++; }
+
+        writeEscaped(out, originalContent, written, end);
+        out.write("<br /><br />");
+        return end;
+    }
 
+    /**
+     * Writes part of the text with '&', '<' and '>' escaped, a piece at a time
+     * @param out where the HTML goes
+     * @param text displayed text
+     * @param from index of first character to write
+     * @param to index after last character to write
+     */
+    private void writeEscaped(Writer out, CharSequence text, int from, int to) throws IOException {
+        int length = 0;
+        for(int i = from; i < to; i++){
+            if(length > escapeBuffer.length - 5){
+                out.write(escapeBuffer, 0, length);
+                length = 0;
             }
 
-            else if(word.angleBrackets){
-                String wordFix = word.textOfWord;
-                wordFix = wordFix.replace("<", "&lt");
-                wordFix = wordFix.replace(">", "&gt");
-                wordFix = "</span>" + wordFix;
-                contentBuilder.replace(word.positionStart, word.positionEnd, wordFix);
+            char c = text.charAt(i);
+            String entity = (c == '&' ? "&amp;" : c == '<' ? "&lt;" : c == '>' ? "&gt;" : null);
+            if(entity == null){ escapeBuffer[length++] = c; }
+            else {
+                entity.getChars(0, entity.length(), escapeBuffer, length);
+                length += entity.length();
             }
         }
-
-        contentBuilder.insert(0, htmlContent).append("</div></body></html>");
-        return contentBuilder.toString();
+        out.write(escapeBuffer, 0, length);
     }
 
-
 }
@@ -0,0 +1,81 @@
+/* last update : 10/18/2026
+FilteredView class - shows only the sentences or paragraphs holding a highlighted word
+the kept text is copied into a separate document, the original document and Tokenizer are left untouched
+offsets in the original document are mapped to the view so highlights and exports can be placed in it
+ */
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+import javax.swing.text.StyledDocument;
+import java.util.BitSet;
+
+public class FilteredView {
+    final StyledDocument document; // document holding only the kept text
+    final int keptCount, totalCount; // number of kept and total sentences or paragraphs
+    private final IntList sourceStarts = new IntList(), sourceEnds = new IntList(), viewStarts = new IntList();
+
+    /** @param t Tokenizer of the original document, its highlight flags decide what is kept
+     * @param sentences true to keep sentences, false to keep paragraphs
+     * @param source original document
+     */
+    FilteredView(Tokenizer t, boolean sentences, Document source) throws BadLocationException {
+        IntList unitOfWord = (sentences ? t.wordSentences : t.wordParagraphs),
+                unitStarts = (sentences ? t.sentenceStarts : t.paragraphStarts),
+                unitEnds = (sentences ? t.sentenceEnds : t.paragraphEnds);
+
+        //one pass over the highlighted words marks the units to keep
+        BitSet kept = new BitSet(unitStarts.size());
+        for(int w = t.highlightFlags.nextSetBit(0); w >= 0; w = t.highlightFlags.nextSetBit(w + 1)){
+            kept.set(unitOfWord.get(w));
+        }
+        keptCount = kept.cardinality();
+        totalCount = unitStarts.size();
+
+        //one pass over the kept units copies their text, separated by a line break where the original had one
+        StringBuilder text = new StringBuilder();
+        Segment segment = new Segment();
+        int previousEnd = -1;
+        for(int u = kept.nextSetBit(0); u >= 0; u = kept.nextSetBit(u + 1)){
+            int start = unitStarts.get(u), end = unitEnds.get(u);
+
+            if(previousEnd >= 0){
+                source.getText(previousEnd, start - previousEnd, segment);
+                text.append(containsLineBreak(segment) ? '\n' : ' ');
+            }
+
+            sourceStarts.add(start);
+            sourceEnds.add(end);
+            viewStarts.add(text.length());
+            source.getText(start, end - start, segment);
+            text.append(segment.array, segment.offset, segment.count);
+            previousEnd = end;
+        }
+
+        document = ChunkedContent.newDocument(text.length());
+        document.insertString(0, text.toString(), null);
+    }
+
+    /** @param offset index in the original document
+     * @return index of the same character in the view, or -1 if it was filtered out
+     */
+    int toView(int offset){
+        int low = 0, high = sourceStarts.size() - 1;
+
+        //binary search for the last kept range starting at or before offset
+        while(low <= high){
+            int middle = (low + high) >>> 1;
+            if(sourceStarts.get(middle) <= offset){ low = middle + 1; }
+            else { high = middle - 1; }
+        }
+        if(high < 0 || offset >= sourceEnds.get(high)){ return -1; }
+        return viewStarts.get(high) + offset - sourceStarts.get(high);
+    }
+
+    private static boolean containsLineBreak(Segment segment){
+        for(int i = segment.offset; i < segment.offset + segment.count; i++){
+            if(segment.array[i] == '\n' || segment.array[i] == '\r'){ return true; }
+        }
+        return false;
+    }
+
+} // FilteredView
@@ -0,0 +1,302 @@
+/* last update : 10/18/2026
+Import class - loads a file into a new document for the text area, tokenizing it on the way
+PDF pages are extracted by several worker threads, each with its own copy of the PDF, and added in page order
+text files are memory mapped and decoded a piece at a time, so no copy of the whole file is made besides the document
+the text goes straight into the document and Tokenizer - a file opened before gets its Tokenizer from the
+TokenizerCache if it is still in memory, otherwise from its IndexFile
+ */
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.StyledDocument;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+
+public class Import {
+    static final int PAGES_AHEAD = 64; // most pages extracted but not yet added to the document
+    static final int MAP_WINDOW = 1 << 26; // bytes of a text file mapped at once
+    static final int PIECE = 1 << 16; // characters decoded before they are added to the document
+    final StyledDocument document;
+    Tokenizer tokenizer; // tokens of the document, not yet listening to it
+    private boolean indexed = false; // tokenizer was read from an index file, so the text is not tokenized
+    private long sourceHash, sourceLength; // content hash and size in bytes of the file
+    final IntList pageStarts = new IntList(); // offset in the document of the first character of each page
+
+    /** @param expectedLength number of characters the file is expected to hold, 0 if unknown */
+    private Import(long expectedLength){ document = ChunkedContent.newDocument(expectedLength); }
+
+    /** takes the file's Tokenizer from the cache or reads its index, otherwise the text will be tokenized as it is added
+     * @param channel source file
+     * @param cache Tokenizers of files closed before, may be null
+     */
+    private void findIndex(FileChannel channel, TokenizerCache cache) throws IOException {
+        sourceLength = channel.size();
+        if(cache != null || IndexFile.enabled){ //otherwise the file is not hashed, its Tokenizer could not be found
+            sourceHash = IndexFile.contentHash(channel);
+            if(cache != null){ tokenizer = cache.take(sourceHash, sourceLength); }
+            if(tokenizer == null){ tokenizer = IndexFile.load(sourceHash, sourceLength); }
+        }
+        indexed = tokenizer != null;
+        if(!indexed){ tokenizer = new Tokenizer(); }
+        if(cache != null){ //the words match the file until they follow an edit, so the cache can keep them
+            tokenizer.fileHash = sourceHash;
+            tokenizer.fileLength = sourceLength;
+        }
+    }
+
+    //ends the Tokenizer once all the text is added, and keeps it in an index file for the next time
+    //words read from an index or the cache are only kept if they were made from as many characters as were extracted now
+    private void finishTokenizer(){
+        int textLength = document.getLength();
+        if(indexed && tokenizer.textLength == textLength){ return; }
+        if(indexed){
+            Tokenizer stale = tokenizer;
+            tokenizer = new Tokenizer(ChunkedContent.text(document));
+            tokenizer.fileHash = stale.fileHash;
+            tokenizer.fileLength = stale.fileLength;
+            indexed = false;
+        }
+        else { tokenizer.endText(); }
+        tokenizer.textLength = textLength;
+        IndexFile.save(tokenizer, sourceHash, sourceLength);
+    }
+
+    /** @param file UTF-8 text file to open
+     * @param progress told the percent of the file loaded each time it changes, may be null
+     * @return document holding the text, with every line ending changed to "\n"
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    static Import text(File file, IntConsumer progress) throws IOException { return text(file, progress, null); }
+
+    /** @param file UTF-8 text file to open
+     * @param progress told the percent of the file loaded each time it changes, may be null
+     * @param cache Tokenizers of files closed before, may be null
+     * @return document holding the text, with every line ending changed to "\n"
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    static Import text(File file, IntConsumer progress, TokenizerCache cache) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            Import loaded = new Import(size);
+            loaded.findIndex(channel, cache);
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer decoded = CharBuffer.allocate(PIECE);
+            char[] piece = new char[PIECE];
+            boolean afterCarriageReturn = false, first = true;
+            int percentDone = -1;
+
+            //each window starts at the first byte the decoder did not use, so no character is cut in two
+            long position = 0;
+            while(true){
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position));
+                boolean last = position + window.limit() == size;
+
+                CoderResult result;
+                do {
+                    if(Thread.currentThread().isInterrupted()){ throw new CancellationException("Opening cancelled"); }
+                    result = decoder.decode(window, decoded, last);
+                    if(last && result.isUnderflow()){ result = decoder.flush(decoded); }
+                    if(result.isError()){ result.throwException(); }
+                    decoded.flip();
+
+                    //line endings "\r\n" and "\r" become "\n", one may be split between two pieces
+                    int length = 0;
+                    if(first && decoded.hasRemaining() && decoded.get(0) == '\uFEFF'){ decoded.get(); } //byte order mark
+                    first = false;
+                    while(decoded.hasRemaining()){
+                        char c = decoded.get();
+                        if(c == '\n' && afterCarriageReturn){ afterCarriageReturn = false; continue; }
+                        afterCarriageReturn = c == '\r';
+                        piece[length++] = (afterCarriageReturn ? '\n' : c);
+                    }
+                    decoded.clear();
+                    if(length > 0){ loaded.append(new String(piece, 0, length)); }
+
+                    int percent = (int) (100L * (position + window.position()) / Math.max(size, 1));
+                    if(progress != null && percent != percentDone){ progress.accept(percent); }
+                    percentDone = percent;
+                } while(result.isOverflow());
+
+                if(last){ break; }
+                position += window.position();
+            }
+
+            loaded.finishTokenizer();
+            return loaded;
+        }
+    }
+
+    /** @param file PDF file to open
+     * @param progress told the percent of pages loaded each time it changes, may be null
+     * @param cache Tokenizers of files closed before, may be null
+     * @return document holding the text of every page, each page starting on a new line
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    static Import pdf(File file, IntConsumer progress, TokenizerCache cache) throws IOException {
+        return pdf(file, progress, Runtime.getRuntime().availableProcessors(), cache);
+    }
+
+    /** @param file PDF file to open
+     * @param progress told the percent of pages loaded each time it changes, may be null
+     * @param maxThreads most worker threads to extract pages with
+     * @return document holding the text of every page, each page starting on a new line
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    static Import pdf(File file, IntConsumer progress, int maxThreads) throws IOException {
+        return pdf(file, progress, maxThreads, null);
+    }
+
+    /** @param file PDF file to open
+     * @param progress told the percent of pages loaded each time it changes, may be null
+     * @param maxThreads most worker threads to extract pages with
+     * @param cache Tokenizers of files closed before, may be null
+     * @return document holding the text of every page, each page starting on a new line
+     * @throws CancellationException if the calling thread is interrupted
+     */
+    static Import pdf(File file, IntConsumer progress, int maxThreads, TokenizerCache cache) throws IOException {
+        Import loaded = new Import(0);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) { loaded.findIndex(channel, cache); }
+        PDDocument first = PDDocument.load(file);
+        int pageCount = first.getNumberOfPages();
+        int threads = Math.max(1, Math.min(maxThreads, pageCount / 4));
+
+        Pages pages = new Pages(pageCount);
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "PDF pages");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            //the PDF already loaded goes to the first worker, every other worker loads its own copy
+            workers.execute(() -> pages.extract(file, first));
+            for(int k = 1; k < threads; k++){ workers.execute(() -> pages.extract(file, null)); }
+
+            //pages are added in order as soon as each one is extracted
+            int percentDone = -1;
+            for(int page = 0; page < pageCount; page++){
+                String text = pages.take(page);
+                loaded.pageStarts.add(loaded.document.getLength());
+                loaded.append(text);
+                if(!text.isEmpty() && text.charAt(text.length() - 1) != '\n'){ loaded.append("\n"); }
+
+                int percent = (int) (100L * (page + 1) / pageCount);
+                if(progress != null && percent != percentDone){ progress.accept(percent); }
+                percentDone = percent;
+            }
+        }
+        finally {
+            pages.stop();
+            workers.shutdownNow();
+        }
+
+        loaded.finishTokenizer();
+        return loaded;
+    }
+
+    /** @param text text to add to the end of the document and Tokenizer */
+    private void append(String text){
+        try { document.insertString(document.getLength(), text, null); }
+        catch (BadLocationException e) { throw new IllegalStateException(e); } //end of document is always valid
+        if(!indexed){ tokenizer.addText(text); }
+    }
+
+    //pages shared between the worker threads extracting them and the thread adding them to the document
+    private static class Pages {
+        private final String[] texts; // text of each page extracted and not yet added, null otherwise
+        private int nextPage = 0, added = 0; // next page for a worker to extract, number of pages added
+        private boolean stopped = false;
+        private Exception failure; // first error of any worker, an IOException or a RuntimeException from PDFBox
+
+        /** @param pageCount number of pages in the PDF */
+        Pages(int pageCount){ texts = new String[pageCount]; }
+
+        /** runs on a worker thread until every page is taken or loading stops
+         * @param file PDF file
+         * @param pdf copy of the PDF to use, or null to load one
+         */
+        void extract(File file, PDDocument pdf){
+            try {
+                if(pdf == null){ pdf = PDDocument.load(file); }
+                PDFTextStripper stripper = new PDFTextStripper();
+                stripper.setLineSeparator("\n");
+
+                int page;
+                while((page = nextPage()) >= 0){
+                    stripper.setStartPage(page + 1);
+                    stripper.setEndPage(page + 1);
+                    String text = stripper.getText(pdf);
+                    synchronized(this){
+                        texts[page] = text;
+                        notifyAll();
+                    }
+                }
+            }
+            catch (IOException | RuntimeException e) { fail(e); } //a page PDFBox can not read must not leave take waiting
+            catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            finally {
+                if(pdf != null){
+                    try { pdf.close(); }
+                    catch (IOException ignored) { } //text was already read
+                }
+            }
+        }
+
+        /** @param e error of a worker, kept if it is the first */
+        private synchronized void fail(Exception e){
+            if(failure == null){ failure = e; }
+            notifyAll();
+        }
+
+        /** waits while a worker would run too far ahead of the pages added to the document
+         *  the next page to add was always handed out already, so it is never held up here
+         * @return index of the page to extract, or -1 when there are none left */
+        private synchronized int nextPage() throws InterruptedException {
+            while(!stopped && failure == null && nextPage < texts.length && nextPage >= added + PAGES_AHEAD){ wait(); }
+            if(stopped || failure != null || nextPage >= texts.length){ return -1; }
+            return nextPage++;
+        }
+
+        /** @param page index of the next page to add to the document
+         * @return text of the page once a worker has extracted it
+         */
+        synchronized String take(int page) throws IOException {
+            try {
+                while(texts[page] == null && failure == null){ wait(); }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Opening cancelled");
+            }
+            if(failure instanceof IOException){ throw (IOException) failure; }
+            if(failure != null){ throw (RuntimeException) failure; }
+
+            String text = texts[page];
+            texts[page] = null;
+            added++;
+            notifyAll();
+            return text;
+        }
+
+        //tells the workers to finish, called once every page is added or loading failed
+        synchronized void stop(){
+            stopped = true;
+            notifyAll();
+        }
+    } // Pages
+
+} // Import
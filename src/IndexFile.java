@@ -0,0 +1,320 @@
+/* last update : 10/18/2026
+IndexFile class - keeps the Tokenizer of an opened file on disk, so opening the same file again skips tokenizing
+index files are named by a hash of the source file's bytes and kept in a cache directory in the user's home
+a file holds the number of characters extracted from the source, so Import can tell an index of other text, then the
+term dictionary, word columns, flags, positional postings and sentence and paragraph boundaries
+reopening maps the file and copies each array in bulk - only the term dictionary is rebuilt term by term
+the directory is kept under MAX_BYTES, the index used longest ago is deleted first - loading an index marks it as used
+index files can be turned off with -Dcontext.index=off, and are off in the benchmarks and in Batch unless it is given --index
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+
+public class IndexFile {
+    static final int MAGIC = 0x43545849; // "CTXI"
+    static final int VERSION = 2; // raise whenever the layout, the way Tokenizer splits words or the way Import extracts text changes
+    static final File DIRECTORY = new File(System.getProperty("user.home"), ".context" + File.separator + "index");
+    static final long MAX_BYTES = 512L << 20; // most bytes of index files kept in the directory
+    static volatile boolean enabled = !"off".equals(System.getProperty("context.index")); // false to skip load and save
+
+    private IndexFile(){ }
+
+    /** @param channel source file
+     * @return 64 bit hash of the file's bytes, read through memory mapped windows - equal files give equal hashes */
+    static long contentHash(FileChannel channel) throws IOException {
+        long size = channel.size(), hash = 0xCBF29CE484222325L ^ size;
+        for(long position = 0; position < size; position += Import.MAP_WINDOW){
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(Import.MAP_WINDOW, size - position))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            while(in.remaining() >= 8){ hash = mix(hash ^ in.getLong()); }
+            while(in.hasRemaining()){ hash = mix(hash ^ (in.get() & 0xFF)); }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash){
+        hash *= 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /** @param hash content hash of the source file
+     * @param length number of bytes in the source file
+     * @return where the index of the source file is kept */
+    static File fileFor(long hash, long length){
+        return new File(DIRECTORY, String.format("%016x-%d.idx", hash, length));
+    }
+
+    /** @param hash content hash of the source file
+     * @param length number of bytes in the source file
+     * @return Tokenizer read from the index of the source file, or null if it has none that can be read
+     */
+    static Tokenizer load(long hash, long length){
+        File file = fileFor(hash, length);
+        if(!enabled || !file.isFile()){ return null; }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE){ return null; }
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            if(in.getInt() != MAGIC || in.getInt() != VERSION || in.getLong() != hash || in.getLong() != length){
+                return null;
+            }
+            Tokenizer t = read(in);
+            file.setLastModified(System.currentTimeMillis()); //used now, so it is the last to be deleted
+            return t;
+        }
+        catch (IOException | RuntimeException e) {
+            file.delete(); //unreadable index, the source is tokenized again and a new index written
+            return null;
+        }
+    }
+
+    /** writes the index of a source file, replacing any index it had - an index that can not be written is skipped
+     *  older indexes are then deleted until the directory is back under MAX_BYTES
+     * @param t Tokenizer of the source file, not changed while it is written
+     * @param hash content hash of the source file
+     * @param length number of bytes in the source file
+     */
+    static void save(Tokenizer t, long hash, long length){
+        File file = fileFor(hash, length), temporary;
+        if(!enabled || (!DIRECTORY.isDirectory() && !DIRECTORY.mkdirs())){ return; }
+
+        //written under another name first, so a reader never maps a half written index
+        try {
+            temporary = Files.createTempFile(DIRECTORY.toPath(), file.getName(), ".tmp").toFile();
+        }
+        catch (IOException e) { return; }
+        try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE)) {
+            write(t, hash, length, new Output(channel));
+        }
+        catch (IOException e) {
+            temporary.delete();
+            return;
+        }
+
+        try { Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING); }
+        catch (IOException e) { temporary.delete(); }
+        trim();
+    }
+
+    //deletes the indexes used longest ago until the rest fit in MAX_BYTES, an index larger than that goes too
+    private static synchronized void trim(){
+        File[] files = DIRECTORY.listFiles((directory, name) -> name.endsWith(".idx"));
+        if(files == null){ return; }
+
+        long bytes = 0;
+        long[] used = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for(int f = 0; f < files.length; f++){
+            bytes += files[f].length();
+            used[f] = files[f].lastModified(); //read once, another thread may load the file meanwhile
+            order[f] = f;
+        }
+        Arrays.sort(order, Comparator.comparingLong(f -> used[f]));
+        for(int f = 0; f < order.length && bytes > MAX_BYTES; f++){
+            long size = files[order[f]].length();
+            if(files[order[f]].delete()){ bytes -= size; }
+        }
+    }
+
+    /** @param t Tokenizer to write
+     * @param hash content hash of the source file
+     * @param length number of bytes in the source file
+     * @param out file being written
+     */
+    private static void write(Tokenizer t, long hash, long length, Output out) throws IOException {
+        int termCount = t.terms.size(), termChars = 0;
+        for(String term : t.terms){ termChars += term.length(); }
+
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putLong(hash);
+        out.putLong(length);
+        out.putInt(t.textLength);
+        out.putInt(termCount);
+        out.putInt(termChars);
+        out.putInt(t.wordCount());
+        out.putInt(t.sentenceStarts.size());
+        out.putInt(t.paragraphStarts.size());
+
+        //term dictionary - length of each term, then all of their characters
+        IntList termLengths = new IntList(termCount);
+        for(String term : t.terms){ termLengths.add(term.length()); }
+        out.putInts(termLengths);
+        for(String term : t.terms){ out.putChars(term); }
+        out.align();
+
+        out.putInts(t.wordStarts);
+        out.putInts(t.wordEnds);
+        out.putInts(t.wordSentences);
+        out.putInts(t.wordParagraphs);
+        out.putInts(t.wordTerms);
+        out.putInts(t.sentenceStarts);
+        out.putInts(t.sentenceEnds);
+        out.putInts(t.paragraphStarts);
+        out.putInts(t.paragraphEnds);
+        out.putBits(t.punctuationFlags);
+        out.putBits(t.angleBracketFlags);
+        out.putBits(t.sentenceEndFlags);
+
+        //positional postings - where each term's word indexes start, then all of them in term order
+        IntList postingStarts = new IntList(termCount + 1);
+        int start = 0;
+        for(IntList posting : t.postings){
+            postingStarts.add(start);
+            start += posting.size();
+        }
+        postingStarts.add(start);
+        out.putInts(postingStarts);
+        for(IntList posting : t.postings){ out.putInts(posting); }
+        out.flush();
+    }
+
+    /** @param in mapped index, positioned after the header
+     * @return Tokenizer holding the index */
+    private static Tokenizer read(ByteBuffer in){
+        int textLength = in.getInt(), termCount = in.getInt(), termChars = in.getInt(), wordCount = in.getInt(),
+                sentenceCount = in.getInt(), paragraphCount = in.getInt();
+        Tokenizer t = new Tokenizer();
+        t.textLength = textLength;
+
+        //terms are added in id order, which also rebuilds the term table, trigrams and lower case terms
+        int[] termLengths = getInts(in, termCount);
+        CharBuffer chars = in.asCharBuffer();
+        char[] text = new char[termChars];
+        chars.get(text);
+        in.position(in.position() + termChars * 2);
+        if((in.position() & 3) != 0){ in.position(in.position() + 2); }
+        int from = 0;
+        for(int id = 0; id < termCount; id++){
+            if(t.internTerm(new String(text, from, termLengths[id])) != id){ throw new IllegalStateException("Duplicate term"); }
+            from += termLengths[id];
+        }
+
+        t.wordStarts = new IntList(getInts(in, wordCount));
+        t.wordEnds = new IntList(getInts(in, wordCount));
+        t.wordSentences = new IntList(getInts(in, wordCount));
+        t.wordParagraphs = new IntList(getInts(in, wordCount));
+        t.wordTerms = new IntList(getInts(in, wordCount));
+        t.sentenceStarts = new IntList(getInts(in, sentenceCount));
+        t.sentenceEnds = new IntList(getInts(in, sentenceCount));
+        t.paragraphStarts = new IntList(getInts(in, paragraphCount));
+        t.paragraphEnds = new IntList(getInts(in, paragraphCount));
+        t.punctuationFlags = getBits(in);
+        t.angleBracketFlags = getBits(in);
+        t.sentenceEndFlags = getBits(in);
+
+        int[] postingStarts = getInts(in, termCount + 1);
+        IntBuffer postings = in.asIntBuffer();
+        for(int id = 0; id < termCount; id++){
+            int[] posting = new int[postingStarts[id + 1] - postingStarts[id]];
+            postings.get(posting);
+            t.postings.set(id, new IntList(posting));
+        }
+
+        t.endText();
+        return t;
+    }
+
+    /** @param in mapped index
+     * @param count number of ints to read
+     * @return the ints, copied in bulk */
+    private static int[] getInts(ByteBuffer in, int count){
+        int[] values = new int[count];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + count * 4);
+        return values;
+    }
+
+    /** @param in mapped index
+     * @return flags stored as a count of longs followed by the longs */
+    private static BitSet getBits(ByteBuffer in){
+        long[] words = new long[in.getInt()];
+        if((in.position() & 7) != 0){ in.position(in.position() + 4); }
+        LongBuffer longs = in.asLongBuffer();
+        longs.get(words);
+        in.position(in.position() + words.length * 8);
+        return BitSet.valueOf(words);
+    }
+
+    //buffered little endian writer, ints are kept 4 byte aligned and longs 8 byte aligned
+    private static class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        private long written = 0; // bytes already passed to the channel
+
+        /** @param c file to write */
+        Output(FileChannel c){ channel = c; }
+
+        void putInt(int value) throws IOException {
+            room(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            room(8);
+            buffer.putLong(value);
+        }
+
+        /** @param values ints to write, without their count */
+        void putInts(IntList values) throws IOException {
+            for(int done = 0; done < values.size(); ){
+                room(4);
+                int n = Math.min(values.size() - done, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values.data, done, n);
+                buffer.position(buffer.position() + n * 4);
+                done += n;
+            }
+        }
+
+        /** @param text characters to write, without their count */
+        void putChars(String text) throws IOException {
+            for(int done = 0; done < text.length(); ){
+                room(2);
+                int n = Math.min(text.length() - done, buffer.remaining() / 2);
+                buffer.asCharBuffer().put(text, done, done + n);
+                buffer.position(buffer.position() + n * 2);
+                done += n;
+            }
+        }
+
+        /** @param flags flags to write as a count of longs followed by the longs */
+        void putBits(BitSet flags) throws IOException {
+            long[] words = flags.toLongArray();
+            putInt(words.length);
+            if(((written + buffer.position()) & 7) != 0){ putInt(0); }
+            for(long word : words){ putLong(word); }
+        }
+
+        //pads to a multiple of 4 bytes after characters
+        void align() throws IOException {
+            if(((written + buffer.position()) & 3) != 0){
+                room(2);
+                buffer.putChar('\0');
+            }
+        }
+
+        /** @param bytes number of bytes about to be put, the buffer is written out if they do not fit */
+        private void room(int bytes) throws IOException {
+            if(buffer.remaining() < bytes){ flush(); }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while(buffer.hasRemaining()){ written += channel.write(buffer); }
+            buffer.clear();
+        }
+    } // Output
+
+} // IndexFile
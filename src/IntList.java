@@ -0,0 +1,101 @@
+/* last update : 10/18/2026
+IntList class - growable list of primitive ints
+used by Tokenizer for token columns and posting lists so no Integer is boxed per word
+ */
+import java.util.Arrays;
+
+public class IntList {
+    int[] data;
+    int size = 0;
+
+    IntList(){ this(16); }
+
+    /** @param capacity initial number of ints the list can hold before growing */
+    IntList(int capacity){ data = new int[Math.max(capacity, 1)]; }
+
+    /** @param values array the list takes over, all of it in use */
+    IntList(int[] values){
+        data = (values.length == 0 ? new int[1] : values);
+        size = values.length;
+    }
+
+    /** @param value int to add to the end of the list */
+    void add(int value){
+        if(size == data.length){ data = Arrays.copyOf(data, size + (size >> 1) + 1); }
+        data[size++] = value;
+    }
+
+    /** @param i index of value to return */
+    int get(int i){ return data[i]; }
+
+    /** @param i index of value to replace
+     * @param value new value
+     */
+    void set(int i, int value){ data[i] = value; }
+
+    int size(){ return size; }
+
+    void clear(){ size = 0; }
+
+    /** @param from index of first value to replace
+     * @param to index after last value to replace
+     * @param values values to put in their place, later values move to make room
+     * @param valueOffset amount added to each of the new values
+     */
+    void replace(int from, int to, IntList values, int valueOffset){
+        int newSize = size - (to - from) + values.size;
+        if(newSize > data.length){ data = Arrays.copyOf(data, newSize + (newSize >> 3) + 1); }
+        System.arraycopy(data, to, data, from + values.size, size - to);
+        for(int i = 0; i < values.size; i++){ data[from + i] = values.data[i] + valueOffset; }
+        size = newSize;
+    }
+
+    /** @param from index of first value to change, every value after it is changed too
+     * @param delta amount to add to each value
+     */
+    void addTo(int from, int delta){
+        if(delta == 0){ return; }
+        for(int i = from; i < size; i++){ data[i] += delta; }
+    }
+
+    /** @param value value to find in an ascending list
+     * @return index of the first value not less than 'value', or size if there is none
+     */
+    int firstAtLeast(int value){ return firstAtLeast(value, 0, size); }
+
+    /** @param value value to find in an ascending list
+     * @return index of the first value not less than 'value', or size if there is none - searched for back from the
+     *          end in growing steps, so it costs about the log of the number of values after it
+     */
+    int firstAtLeastFromEnd(int value){
+        int low = 0, high = size;
+        for(int step = 1; high - step >= 0; step <<= 1){
+            if(data[high - step] < value){
+                low = high - step + 1;
+                break;
+            }
+            high -= step;
+        }
+        return firstAtLeast(value, low, high);
+    }
+
+    /** @param value value to find in an ascending list
+     * @param low index to search from, every value before it is less than 'value'
+     * @param high index to search to, every value from it on is not less than 'value'
+     * @return index of the first value not less than 'value'
+     */
+    private int firstAtLeast(int value, int low, int high){
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(data[middle] < value){ low = middle + 1; }
+            else { high = middle; }
+        }
+        return low;
+    }
+
+    boolean isEmpty(){ return size == 0; }
+
+    /** @return copy of the list trimmed to its size */
+    int[] toArray(){ return Arrays.copyOf(data, size); }
+
+} // IntList
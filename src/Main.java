@@ -1,17 +1,14 @@
-/* last update : 12/11/2021
+/* last update : 10/18/2026
 Main Class - builds the GUI, handles file opening, and some of the search logic
 calls Tokenizer to tokenize document into word instances
+calls TokenizerCache to keep the Tokenizers of closed files for when they are opened again
 calls Search to sort search data and identify found words
 calls Export to convert displayed data into TXT or HTML document
+calls Import to load PDF and text files into a document
 calls ErrorClass to display messages or get input from user
+calls PhaseTimer to time opening, locking, highlighting and exporting, shown in the StatusBar
 */
 
-import org.apache.pdfbox.cos.COSDocument;
-import org.apache.pdfbox.io.RandomAccessFile;
-import org.apache.pdfbox.pdfparser.PDFParser;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
-
 import javax.swing.JFrame;
 import javax.swing.ImageIcon;
 import javax.swing.JPanel;
@@ -26,6 +23,8 @@ import javax.swing.JColorChooser;
 import javax.swing.JFileChooser;
 import javax.swing.filechooser.FileSystemView;
 import javax.swing.JMenuBar;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
 import javax.swing.JMenuItem;
 import javax.swing.JMenu;
 import javax.swing.BoxLayout;
@@ -35,6 +34,7 @@ import javax.swing.BorderFactory;
 
 import javax.swing.text.BadLocationException;
 import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Document;
 import javax.swing.text.Highlighter;
 
 import java.awt.Dimension;
@@ -47,17 +47,34 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
 
 import java.net.URL;
-import java.nio.file.Files;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
 
 public class Main extends JFrame {
     private final List<CreateSearchWidget> searches = new ArrayList<>();
     public Tokenizer tokenizer;
+    private Document fullDocument; // document as loaded, while a filtered view is shown
+    private FilteredView filteredView; // sentences or paragraphs only view, null when showing all text
+    private Future<?> importing; // file loading on the tokenizer thread, null when done
+    private int importRun = 0; // number of the latest file load, older results are ignored
+    private Future<?> exporting; // HTML export on the tokenizer thread, null when done
+    private int exportRun = 0; // number of the latest export, older results are ignored
+    private boolean editableBeforeExport; // text area was editable when the export started
+    private final ExecutorService tokenizerExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Tokenizer");
+        thread.setDaemon(true);
+        return thread;
+    }); // tokenizes locked documents off the event dispatch thread
+    private final TokenizerCache tokenizerCache = new TokenizerCache(Runtime.getRuntime().maxMemory() / 16);
     private final CreateMenu createMenu;
     public final TextEditor textEditor;
     public final SearchWidgetsPanel searchWidgetsPanel;
@@ -106,6 +123,12 @@ public class Main extends JFrame {
         statusBar = new StatusBar(W_WIDTH);
         statusBar.setBorder(BorderFactory.createEtchedBorder(EtchedBorder.LOWERED));
 
+        statusBar.cancelButton.addActionListener(c -> { //stops opening a file or exporting, or unlocks to cancel indexing
+            if(importing != null){ cancelImport(); }
+            else if(exporting != null){ cancelExport(); }
+            else { searchWidgetsPanel.lockDocButton.doClick(); }
+        });
+
         contentOverStatus.add(mainContentPanel);
         contentOverStatus.add(statusBar);
 
@@ -161,16 +184,28 @@ public class Main extends JFrame {
             expHTML = new JMenuItem("HTML");
             expHTML.setMnemonic(KeyEvent.VK_H);
             expHTML.addActionListener(e -> {
-                Export exporter = new Export(tokenizer, "Exported Document", textEditor.jTextPane.getText());
-                //returns false if there is an error.
-                //todo - notify user if there is an error
-                exporter.exportHtml();
+                if(searchWidgetsPanel.tokenizing != null){
+                    new ErrorClass(ErrorClass.ErrorType.INFO, "Indexing", "Please wait until the document is indexed.");
+                    return;
+                }
+                if(tokenizer == null){
+                    new ErrorClass(ErrorClass.ErrorType.INFO, "Indexing", "Please lock the document to index it first.");
+                    return;
+                }
+                if(exporting != null){
+                    new ErrorClass(ErrorClass.ErrorType.INFO, "Exporting", "Please wait until the export is done.");
+                    return;
+                }
+                Export exporter = new Export(tokenizer, "Exported Document",
+                        ChunkedContent.text(textEditor.jTextPane.getDocument()), filteredView);
+                File file = exporter.htmlFile();
+                if(file != null){ exportHtml(exporter, file); }
             });
 
             expTXT = new JMenuItem("TXT");
             expTXT.setMnemonic(KeyEvent.VK_T);
             expTXT.addActionListener(e -> {
-                Export exporter = new Export(textEditor.jTextPane.getText());
+                Export exporter = new Export(ChunkedContent.text(textEditor.jTextPane.getDocument()));
                 exporter.exportText();
             });
 
@@ -205,48 +240,18 @@ public class Main extends JFrame {
 
             if (selectedFile != null) {
 
-                //OPEN PDF FILE
+                //OPEN PDF FILE - pages are loaded and indexed on the tokenizer thread
                 if (selectedFile.toString().endsWith("pdf")) {
-                    String parsedPDF = "";
-
-                    try {
-                        PDFParser pdfParser = new PDFParser(new RandomAccessFile(selectedFile, "r"));
-                        pdfParser.parse();
-                        COSDocument cosDocument = pdfParser.getDocument();
-                        PDDocument pdDocument = new PDDocument(cosDocument);
-                        PDFTextStripper pdfTextStripper = new PDFTextStripper();
-
-                        File tempFile = new File("temp.txt");
-                        PrintWriter out = new PrintWriter(tempFile);
-                        out.println(pdfTextStripper.getText(pdDocument));
-
-                        pdDocument.close();
-                        out.close();
-
-                        selectedFile = tempFile;
-
-                    } catch (IOException e) {
-                        newFile = new ErrorClass(ErrorClass.ErrorType.FILE_ERROR,
-                                "File Error", "There was an error opening the file. " + e).reDo;
-                    }
-                    textEditor.jTextPane.setText(parsedPDF);
+                    File pdfFile = selectedFile;
+                    importFile(progress -> Import.pdf(pdfFile, progress, tokenizerCache));
+                    newFile = false;
                 }
 
-                //OPEN TXT FILE
-                if (selectedFile.toString().endsWith("txt")) {
-                    try {
-                        StringBuilder text = new StringBuilder();
-
-                        List<String> lines = Files.readAllLines(selectedFile.toPath());
-                        for (String x : lines) { text.append(x).append("\n"); }
-                        textEditor.jTextPane.setText(text.toString());
-                        newFile = false;
-
-                    } catch (IOException ex) {
-                        newFile = new ErrorClass(ErrorClass.ErrorType.FILE_ERROR,
-                                "File Error", "There was an error opening the file." + ex).reDo;
-                    }
-
+                //OPEN TXT FILE - the file is mapped, decoded and indexed on the tokenizer thread
+                else if (selectedFile.toString().endsWith("txt")) {
+                    File textFile = selectedFile;
+                    importFile(progress -> Import.text(textFile, progress, tokenizerCache));
+                    newFile = false;
                 }
 
                 else {
@@ -262,11 +267,175 @@ public class Main extends JFrame {
 
     } // OpenFile
 
+    //how a file is read into an Import, given a progress consumer - throws IOException unlike java.util.function
+    private interface Loader {
+        Import load(IntConsumer progress) throws IOException;
+    }
+
+    /** loads a file on the tokenizer thread, then shows it with its tokens ready for the first lock
+     * @param loader reads the file into a new document and Tokenizer
+     */
+    private void importFile(Loader loader){
+        int run = ++importRun;
+        PhaseTimer timer = new PhaseTimer("Open", 0);
+        IntConsumer progress = percent -> SwingUtilities.invokeLater(() -> {
+            if(run == importRun){ statusBar.progressBar.setValue(percent); }
+        });
+        statusBar.showProgress(true);
+        statusBar.noticeLabel.setText("Opening file... ");
+        createMenu.openSubMenu.setEnabled(false);
+        searchWidgetsPanel.lockDocButton.setEnabled(false);
+
+        importing = tokenizerExecutor.submit(() -> {
+            try {
+                PhaseTimer.Phase load = timer.begin("load");
+                Import loaded = loader.load(progress);
+                timer.documentLength = loaded.document.getLength();
+                load.end(loaded.tokenizer.wordCount());
+                SwingUtilities.invokeLater(() -> imported(run, loaded, null, timer));
+            }
+            catch (CancellationException e) { return; }
+            catch (IOException | RuntimeException e) { SwingUtilities.invokeLater(() -> imported(run, null, e, timer)); }
+        });
+    }
+
+    /** runs on the event dispatch thread when the file is loaded
+     * @param run number of the load
+     * @param loaded document and tokens of the file, null if it could not be read
+     * @param error why the file could not be read, null if it was
+     * @param timer phases of opening the file
+     */
+    private void imported(int run, Import loaded, Exception error, PhaseTimer timer){
+        if(run != importRun){ return; } //cancelled
+        importing = null;
+        statusBar.showProgress(false);
+        statusBar.noticeLabel.setText("");
+        createMenu.openSubMenu.setEnabled(true);
+        searchWidgetsPanel.lockDocButton.setEnabled(true);
+
+        if(loaded == null){
+            boolean reDo = new ErrorClass(ErrorClass.ErrorType.FILE_ERROR,
+                    "File Error", "There was an error opening the file. " + error).reDo;
+            if(reDo){ OpenFile(); }
+            return;
+        }
+
+        //the new Tokenizer follows the document from now on, so locking it only re-tokenizes edits
+        PhaseTimer.Phase show = timer.begin("show");
+        retireTokenizer();
+
+        //highlights and a filtered view are offsets in the last document, they do not carry over to the new one
+        textEditor.highlighter.removeAllHighlights();
+        textEditor.bulkHighlighter.clear();
+        if(filteredView != null){
+            filteredView = null;
+            fullDocument = null;
+            searchWidgetsPanel.sentenceDocButton.setText("Sentences Only");
+            searchWidgetsPanel.paragraphDocButton.setText("Paragraphs Only");
+        }
+        textEditor.jTextPane.setDocument(loaded.document);
+        tokenizer = loaded.tokenizer;
+        tokenizer.listen(loaded.document);
+        show.end(loaded.pageStarts.size());
+        statusBar.showPhases(timer);
+        statusBar.wordCount.setText("" + tokenizer.wordCount());
+        if(!loaded.pageStarts.isEmpty()){ statusBar.noticeLabel.setText(loaded.pageStarts.size() + " pages "); }
+    }
+
+    //stops the current Tokenizer following its document, which is being replaced, and keeps it in the cache
+    //a Tokenizer with edits not yet brought up to date no longer matches its file, so it is dropped
+    private void retireTokenizer(){
+        if(tokenizer == null){ return; }
+
+        Tokenizer retired = tokenizer;
+        retired.stopListening();
+        tokenizer = null;
+        if(!retired.hasPendingEdits()){ tokenizerCache.put(retired); }
+    }
+
+    /** writes an HTML export on the tokenizer thread, the document can not be edited meanwhile
+     * @param exporter export of the displayed document
+     * @param file file to write
+     */
+    private void exportHtml(Export exporter, File file){
+        int run = ++exportRun;
+        PhaseTimer timer = new PhaseTimer("Export", textEditor.jTextPane.getDocument().getLength());
+        IntConsumer progress = percent -> SwingUtilities.invokeLater(() -> {
+            if(run == exportRun){ statusBar.progressBar.setValue(percent); }
+        });
+        statusBar.showProgress(true);
+        statusBar.noticeLabel.setText("Exporting... ");
+        editableBeforeExport = textEditor.jTextPane.isEditable();
+        textEditor.jTextPane.setEditable(false);
+        searchWidgetsPanel.lockDocButton.setEnabled(false);
+        createMenu.openSubMenu.setEnabled(false);
+
+        exporting = tokenizerExecutor.submit(() -> {
+            try {
+                PhaseTimer.Phase write = timer.begin("write");
+                exporter.exportHtml(file, progress);
+                write.end(exporter.highlightedCount());
+                SwingUtilities.invokeLater(() -> {
+                    if(run == exportRun){ statusBar.showPhases(timer); }
+                    exported(run, file, null);
+                });
+            }
+            catch (CancellationException e) { return; }
+            catch (IOException | RuntimeException e) { SwingUtilities.invokeLater(() -> exported(run, file, e)); }
+        });
+    }
+
+    /** runs on the event dispatch thread when the export is written
+     * @param run number of the export
+     * @param file exported file
+     * @param error why the file could not be written, null if it was
+     */
+    private void exported(int run, File file, Exception error){
+        if(run != exportRun){ return; } //cancelled
+        exportDone(" | exported " + file.getName() + " | ");
+
+        if(error != null){ new ErrorClass(ErrorClass.ErrorType.UNKNOWN_ERROR, "WARNING", error.toString()); }
+        else { Export.open(file); }
+    }
+
+    //stops an export still being written, its unfinished file is deleted
+    private void cancelExport(){
+        if(exporting == null){ return; }
+
+        exporting.cancel(true);
+        exportRun++;
+        exportDone(" | export cancelled | ");
+    }
+
+    /** @param notice text for the status bar */
+    private void exportDone(String notice){
+        exporting = null;
+        statusBar.showProgress(false);
+        statusBar.noticeLabel.setText(notice);
+        textEditor.jTextPane.setEditable(editableBeforeExport);
+        searchWidgetsPanel.lockDocButton.setEnabled(true);
+        createMenu.openSubMenu.setEnabled(editableBeforeExport);
+    }
+
+    //stops a file still loading, the document shown before is kept
+    private void cancelImport(){
+        if(importing == null){ return; }
+
+        importing.cancel(true);
+        importing = null;
+        importRun++;
+        statusBar.showProgress(false);
+        statusBar.noticeLabel.setText(" | opening cancelled | ");
+        createMenu.openSubMenu.setEnabled(true);
+        searchWidgetsPanel.lockDocButton.setEnabled(true);
+    }
+
     //create area for document to be displayed as original and highlighted
     private static class TextEditor extends JPanel {
         JTextPane jTextPane;
         JScrollPane jScrollPane;
         Highlighter highlighter;
+        BulkHighlighter bulkHighlighter; // paints the words found by the searches
 
         /** @param editorWidth width of text display area
          * @param editorHeight height of text display area
@@ -274,13 +443,14 @@ public class Main extends JFrame {
         TextEditor(int editorWidth, int editorHeight){
             setPreferredSize(new Dimension(editorWidth, editorHeight));
 
-            jTextPane = new JTextPane();
+            jTextPane = new JTextPane(ChunkedContent.newDocument(0)); //text the Tokenizer can read in place
             jTextPane.setText("Highlight World!");
 
             jScrollPane = new JScrollPane(jTextPane);
             jScrollPane.setPreferredSize(new Dimension(editorWidth-25, editorHeight-25));
 
             highlighter = jTextPane.getHighlighter();
+            bulkHighlighter = new BulkHighlighter(jTextPane, jScrollPane.getViewport());
             try {
                 highlighter.addHighlight(0, 8, new DefaultHighlighter.DefaultHighlightPainter(Color.yellow));
             }
@@ -305,6 +475,9 @@ public class Main extends JFrame {
         JPanel widgetContainer, widgetControls, leftControls, rightControls;
         JButton addSearch, highlightButton, clearHighlightsButton,
                 lockDocButton, sentenceDocButton, paragraphDocButton;
+        Future<?> tokenizing; // tokenization running on the tokenizer thread, null when done
+        private int tokenizeRun = 0; // number of the latest tokenization, older results are ignored
+        private boolean highlightWaiting = false; // Highlight was clicked while tokenizing
 
         SearchWidgetsPanel(){
             setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
@@ -345,63 +518,31 @@ public class Main extends JFrame {
             clearHighlightsButton = new JButton("Clear Highlights");
             clearHighlightsButton.addActionListener(c -> {
                 textEditor.highlighter.removeAllHighlights(); //clear highlight
-                if(tokenizer != null) {
-                    for (Tokenizer.Word word : tokenizer.allWords) { word.highlightFlag = false; } //clear flags
-                }
+                textEditor.bulkHighlighter.clear();
+                if(tokenizer != null && tokenizing == null) { tokenizer.highlightFlags = new BitSet(); } //clear flags at once
             });
 
             //HIGHLIGHT DOCUMENT BUTTON
             highlightButton = new JButton("Highlight");
-            highlightButton.addActionListener(h -> highlightAction()); // highlight button action
+            highlightButton.addActionListener(h -> { // highlight button action, run once indexing is done
+                if(tokenizing == null) { highlightAction(); }
+                else {
+                    highlightWaiting = true;
+                    statusBar.noticeLabel.setText("Indexing document... highlights will follow ");
+                }
+            });
 
+            //show only the sentences or paragraphs holding a highlight, or go back to all text
             sentenceDocButton = new JButton("Sentences Only");
             sentenceDocButton.addActionListener(s -> {
-                List<Integer> removeSentences = removalList(true, false);
-
-                int from, length;
-                try {
-                    for (int i = removeSentences.size() - 1; i >= 0; i--) {
-                        from = tokenizer.sentenceStarts.get(removeSentences.get(i));
-                        length = tokenizer.sentenceEnds.get(removeSentences.get(i)) - from;
-                        textEditor.jTextPane.getDocument().remove(from, length);
-                    }
-                }
-                catch (BadLocationException e) {
-                    new ErrorClass(ErrorClass.ErrorType.UNKNOWN_ERROR, "Removal Error", e.toString());
-                }
-                removeSentences.clear();
-
-                tokenizer = new Tokenizer(textEditor.jTextPane.getText());
-                highlightAction();
+                if(sentenceDocButton.getText().equals("Sentences Only")) { showFilteredView(true); }
+                else { showFullDocument(); }
             });
 
             paragraphDocButton = new JButton("Paragraphs Only");
             paragraphDocButton.addActionListener(p -> {
-                List<Integer> removeParagraphs = removalList(false, true);
-
-                int from, length;
-                try {
-                    for (int i = removeParagraphs.size() - 1; i >= 0; i--) {
-                        from = tokenizer.paragraphStarts.get(removeParagraphs.get(i));
-                        length = tokenizer.paragraphEnds.get(removeParagraphs.get(i)) - from;
-                        textEditor.jTextPane.getDocument().remove(from, length);
-
-                        //take out extra line otherwise left by removed paragraph
-                        if(textEditor.jTextPane.getDocument().getLength() > from + 1){
-                            textEditor.jTextPane.getDocument().remove(from, 1);
-                        }
-
-                    }
-                }
-                catch (BadLocationException e) {
-                    new ErrorClass(ErrorClass.ErrorType.UNKNOWN_ERROR, "Removal Error", e.toString());
-                }
-
-                removeParagraphs.clear();
-
-                tokenizer = new Tokenizer(textEditor.jTextPane.getText());
-                highlightAction();
-
+                if(paragraphDocButton.getText().equals("Paragraphs Only")) { showFilteredView(false); }
+                else { showFullDocument(); }
             });
 
             //LOCK DOCUMENT BUTTON
@@ -418,17 +559,17 @@ public class Main extends JFrame {
                     //lock document to prevent editing and enable highlighting buttons
                     textEditor.jTextPane.setEditable(false);
                     highlightButton.setEnabled(true);
-                    sentenceDocButton.setEnabled(true);
-                    paragraphDocButton.setEnabled(true);
                     createMenu.openSubMenu.setEnabled(false);
 
-                    tokenizer = new Tokenizer(textEditor.jTextPane.getText()); //tokenize document
+                    tokenizeDocument(); //sentence and paragraph buttons are enabled once it is done
 
                 }
 
                 //if document is locked
                 else{
                     lockDocButton.setText("Lock to Highlight");
+                    cancelTokenizing();
+                    showFullDocument(); //edits always go to the original document
 
                     //unlock document to allow editing and disable highlighting buttons
                     highlightButton.setEnabled(false);
@@ -464,82 +605,193 @@ public class Main extends JFrame {
         //actions taken by the highlight button
         private void highlightAction(){
 
-            List<Search> paragraphSearches = new ArrayList<>(),
-                    sentenceSearches = new ArrayList<>(),
-                    individualSearches = new ArrayList<>();
-
-            searches.forEach(search -> {
-
-                //DATA FROM SEARCH BOX
-                String textValue = search.searchQuery.getText();
-                int searchTypeSelected = search.searchType.getSelectedIndex();
-                Color color = search.highlightColor;
-                SearchType type;
-                boolean exact = search.exactMatch.isSelected(), caseMatch = search.matchCase.isSelected();
-
-                //ADD SEARCHES TO SEARCH TYPE LISTS
-                switch (searchTypeSelected) {
-                    case 1:
-                        type = SearchType.PARAGRAPH;
-                        paragraphSearches.add(new Search(tokenizer, textValue, type, color, exact, caseMatch));
-                        break;
-                    case 2:
-                        type = SearchType.SENTENCES;
-                        sentenceSearches.add(new Search(tokenizer, textValue, type, color, exact, caseMatch));
-                        break;
-                    default:
-                        type = SearchType.WHOLE_DOCUMENT;
-                        individualSearches.add(new Search(tokenizer, textValue, type, color, exact, caseMatch));
-                        break;
+            List<Search> searchList = new ArrayList<>();
+
+            //a query that is not well formed is shown to the user and nothing is highlighted
+            try {
+                searches.forEach(search -> {
+
+                    //DATA FROM SEARCH BOX
+                    String textValue = search.searchQuery.getText();
+                    int searchTypeSelected = search.searchType.getSelectedIndex();
+                    Color color = search.highlightColor;
+                    SearchType type;
+                    boolean exact = search.exactMatch.isSelected(), caseMatch = search.matchCase.isSelected();
+
+                    //SEARCH TYPE OF SELECTED COMBO BOX ENTRY
+                    switch (searchTypeSelected) {
+                        case 1:
+                            type = SearchType.PARAGRAPH;
+                            break;
+                        case 2:
+                            type = SearchType.SENTENCES;
+                            break;
+                        case 3:
+                            type = SearchType.PROXIMITY;
+                            break;
+                        default:
+                            type = SearchType.WHOLE_DOCUMENT;
+                            break;
+                    }
+                    searchList.add(new Search(tokenizer, textValue, type, color, exact, caseMatch));
+                });
+            }
+            catch (IllegalArgumentException e) {
+                new ErrorClass(ErrorClass.ErrorType.INFO, "Query Error", e.getMessage());
+                return;
+            }
+
+            //find the words of every search and flag the ones to highlight
+            PhaseTimer timer = new PhaseTimer("Highlight", textEditor.jTextPane.getDocument().getLength());
+            Search.highlightAll(searchList, timer);
+
+            //SET HIGHLIGHTS
+            PhaseTimer.Phase install = timer.begin("install");
+            int i = installHighlights();
+            install.end(i);
+            statusBar.showPhases(timer);
+
+            statusBar.foundCount.setText("" + i);
+            statusBar.wordCount.setText("" + tokenizer.wordCount());
+
+            StringBuilder notice = new StringBuilder();
+            if (tokenizer.wordCount() < 1) { notice.append(" ... | no text to search | ... "); }
+            if(i < 1){ notice.append(" | no matches found | ... "); }
+
+            statusBar.noticeLabel.setText(notice.toString());
+
+        } // highlightAction
+
+        //tokenize document on the tokenizer thread
+        //only the lines edited since the last lock if the tokenizer follows this document
+        private void tokenizeDocument(){
+            Document document = textEditor.jTextPane.getDocument();
+            Tokenizer current = tokenizer;
+            boolean incremental = current != null && current.isListening(document);
+            CharSequence text = (incremental ? null : ChunkedContent.text(document)); //read in place, document is locked
+            int run = ++tokenizeRun;
+            PhaseTimer timer = new PhaseTimer("Lock", document.getLength());
+
+            IntConsumer progress = percent -> SwingUtilities.invokeLater(() -> {
+                if(run == tokenizeRun){ statusBar.progressBar.setValue(percent); }
+            });
+            statusBar.showProgress(true);
+            statusBar.noticeLabel.setText("Indexing document... ");
+
+            tokenizing = tokenizerExecutor.submit(() -> {
+                Tokenizer result = current;
+                try {
+                    if(incremental){
+                        PhaseTimer.Phase update = timer.begin("update");
+                        current.update(progress);
+                        update.end(current.wordCount());
+                    }
+                    else {
+                        PhaseTimer.Phase tokenize = timer.begin("tokenize");
+                        result = new Tokenizer(text, progress);
+                        tokenize.end(result.wordCount());
+                    }
                 }
+                catch (CancellationException e) { return; }
+                catch (BadLocationException e) { result = null; } //edits no longer fit the document
+
+                Tokenizer done = result;
+                SwingUtilities.invokeLater(() -> tokenized(run, done, document, timer));
             });
+        }
 
-            //GET LISTS OF ALL WORDS IN MAP
-            paragraphSearches.forEach(Search::wordListInMap);
-            sentenceSearches.forEach(Search::wordListInMap);
-            individualSearches.forEach(Search::wordListInMap);
+        /** runs on the event dispatch thread when the tokenizer thread is done
+         * @param run number of the tokenization
+         * @param result Tokenizer of the document, null if it has to be tokenized from scratch
+         * @param document document that was tokenized
+         * @param timer phases of the tokenization
+         */
+        private void tokenized(int run, Tokenizer result, Document document, PhaseTimer timer){
+            if(run != tokenizeRun){ return; } //cancelled or replaced by a later lock
+            tokenizing = null;
+
+            if(result == null){
+                if(tokenizer != null){ tokenizer.stopListening(); }
+                tokenizer = null;
+                tokenizeDocument();
+                return;
+            }
 
-            //PARAGRAPH SEARCH
-            if(!paragraphSearches.isEmpty()) { paragraphSearch(paragraphSearches); }
+            if(result != tokenizer){
+                retireTokenizer();
+                tokenizer = result;
+                tokenizer.listen(document);
+            }
 
-            //SENTENCE SEARCH
-            //if there are sentence searches
-            if(!sentenceSearches.isEmpty()) { sentenceSearch(sentenceSearches); }
+            statusBar.showProgress(false);
+            statusBar.noticeLabel.setText("");
+            statusBar.showPhases(timer);
+            statusBar.wordCount.setText("" + tokenizer.wordCount());
+            sentenceDocButton.setEnabled(true);
+            paragraphDocButton.setEnabled(true);
+
+            if(highlightWaiting){
+                highlightWaiting = false;
+                highlightAction();
+            }
+        }
 
-            //INDIVIDUAL SEARCH
-            //set highlight flag and color for each word for each individual search
-            if(!individualSearches.isEmpty()) {
-                for (Search individualSearch : individualSearches) { individualSearch.setHighlightI(); }
+        //stops tokenization still running when the document is unlocked
+        private void cancelTokenizing(){
+            if(tokenizing == null){ return; }
+
+            tokenizing.cancel(true);
+            tokenizing = null;
+            tokenizeRun++;
+            highlightWaiting = false;
+            statusBar.showProgress(false);
+            statusBar.noticeLabel.setText(" | indexing cancelled | ");
+
+            //an update may have been stopped half way, so the next lock tokenizes everything
+            if(tokenizer != null){
+                tokenizer.stopListening();
+                tokenizer = null;
             }
+        } // tokenizeDocument
 
-            //SET HIGHLIGHTS
-            //for all words- if highlight flag is set, highlight word with that color
-            int i = 0;
-            for(Tokenizer.Word word : tokenizer.allWords){
-
-                if(word.highlightFlag){
-                    i++;
-                    try {
-                        textEditor.highlighter.addHighlight(word.positionStart, word.positionEnd,
-                                new DefaultHighlighter.DefaultHighlightPainter(word.highlightColor));
-                    } catch (BadLocationException e) {
-                        new ErrorClass(ErrorClass.ErrorType.UNKNOWN_ERROR, "Highlight Error", e.toString());
-                    }
-                }
-                else{ word.highlightColor = Color.white; }
+        //for all words- if highlight flag is set, highlight word with that color where it is shown
+        //all words go into one bulk highlight, so the text area repaints once
+        /** @return number of highlighted words in the whole document */
+        private int installHighlights(){
+            textEditor.highlighter.removeAllHighlights();
+            return textEditor.bulkHighlighter.install(tokenizer, filteredView);
+        } // installHighlights
+
+        /** @param sentences true to show only highlighted sentences, false for highlighted paragraphs */
+        private void showFilteredView(boolean sentences){
+            if(filteredView == null){ fullDocument = textEditor.jTextPane.getDocument(); }
 
+            try { filteredView = new FilteredView(tokenizer, sentences, fullDocument); }
+            catch (BadLocationException e) {
+                new ErrorClass(ErrorClass.ErrorType.UNKNOWN_ERROR, "Filter Error", e.toString());
+                return;
             }
 
-            statusBar.foundCount.setText("" + i);
-            statusBar.wordCount.setText("" + (tokenizer.allWords.size()));
+            textEditor.jTextPane.setDocument(filteredView.document);
+            sentenceDocButton.setText(sentences ? "Show All Text" : "Sentences Only");
+            paragraphDocButton.setText(sentences ? "Paragraphs Only" : "Show All Text");
+            installHighlights();
 
-            StringBuilder notice = new StringBuilder();
-            if (tokenizer.allWords.size() < 1) { notice.append(" ... | no text to search | ... "); }
-            if(i < 1){ notice.append(" | no matches found | ... "); }
+            statusBar.noticeLabel.setText("Showing " + filteredView.keptCount + " of " + filteredView.totalCount
+                    + (sentences ? " sentences " : " paragraphs "));
+        } // showFilteredView
 
-            statusBar.noticeLabel.setText(notice.toString());
+        //puts the original document back in the text area, the token index still matches it
+        private void showFullDocument(){
+            if(filteredView == null){ return; }
 
-        } // highlightAction
+            filteredView = null;
+            textEditor.jTextPane.setDocument(fullDocument);
+            sentenceDocButton.setText("Sentences Only");
+            paragraphDocButton.setText("Paragraphs Only");
+            installHighlights();
+            statusBar.noticeLabel.setText("");
+        } // showFullDocument
 
     } // CreateSearchParameterMenu
 
@@ -604,8 +856,10 @@ public class Main extends JFrame {
     public static class StatusBar extends JPanel{
 
         JLabel wordCountLabel = new JLabel("Word Count"), foundWordsLabel = new JLabel("Found Count"),
-                noticeLabel = new JLabel("");
+                noticeLabel = new JLabel(""), phaseLabel = new JLabel(""); // time of the last action, phases in its tool tip
         JTextField wordCount = new JTextField("2"), foundCount = new JTextField("1");
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        JButton cancelButton = new JButton("Cancel");
 
         /** @param width preset width of window */
         StatusBar(int width){
@@ -619,140 +873,34 @@ public class Main extends JFrame {
             foundCount.setPreferredSize(new Dimension(100, 20));
 
             add(noticeLabel);
+            add(phaseLabel);
             add(wordCountLabel);
             add(wordCount);
             add(foundWordsLabel);
             add(foundCount);
 
-        }
-    } // StatusBar
-
-        //execute search for words that match in same sentence
-        /** @param sentenceSearches all searches that require the context of same sentence*/
-        void sentenceSearch(List<Search> sentenceSearches){
-
-            List<Integer> includeSentences, holdSentenceList = new ArrayList<>();
-
-            //if the first search's list of sentences is empty, return with no highlights
-            if (sentenceSearches.get(0).sentences.isEmpty()) { return; }
-
-            //if the first search's list of sentences is not empty,
-            // put the list of sentences from the first search in the list of included sentences
-            else{ includeSentences = new ArrayList<>(sentenceSearches.get(0).sentences); }
-
-            //if the list of sentences is not empty,
-            if (!includeSentences.isEmpty()) {
-                //for each subsequent search
-                for (int i = 1; i < sentenceSearches.size() && !includeSentences.isEmpty(); i++) {
-
-                    //and for each sentence in that search's sentence list
-                    for( int sentenceNumber : sentenceSearches.get(i).sentences) {
-
-                        //if the sentence in the search's list is in the include list
-                        if (includeSentences.contains(sentenceNumber)){
+            progressBar.setPreferredSize(new Dimension(100, 20));
+            progressBar.setStringPainted(true);
+            cancelButton.setToolTipText("Stop opening or exporting the file, or stop indexing and unlock the document");
+            showProgress(false);
+            add(progressBar);
+            add(cancelButton);
 
-                            //add the sentence to the hold list
-                            holdSentenceList.add(sentenceNumber);
-                        }
-                    }
-
-                    if(holdSentenceList.isEmpty()){ return; } //if the hold list is empty, return with no highlights
-
-
-                    else { //if the hold list is not empty
-                        includeSentences.clear(); //clear the keep list
-                        includeSentences.addAll(holdSentenceList); //put the hold list in the keep list
-                        holdSentenceList.clear();//clear the hold list
-                    }
-
-                }
-
-                //if the keep list is populated, set highlight flag and color for each word for each search
-                if (!includeSentences.isEmpty()) {
-                    for (Search sS : sentenceSearches) { sS.setHighlightS(includeSentences); }
-                }
-            }
-
-        } // sentenceSearch
-
-        //execute search for words that match in same paragraph
-        /** @param paragraphSearches all searches that require the context of same paragraph */
-        void paragraphSearch(List<Search> paragraphSearches){
-
-            List<Integer> includeParagraphs, holdParagraphList = new ArrayList<>();
-
-            //if the first search's list of paragraphs is empty, return with no highlights
-            if (paragraphSearches.get(0).paragraphs.isEmpty()) { return; }
-
-            //if the first search's list of paragraphs is not empty, include the first search's paragraphs
-            else{ includeParagraphs = new ArrayList<>(paragraphSearches.get(0).paragraphs); }
-
-            //if the list of paragraphs is not empty,
-            if (!includeParagraphs.isEmpty()) {
-                //for each subsequent search
-                for (int i = 1; i < paragraphSearches.size() && !includeParagraphs.isEmpty(); i++) {
-
-                    //and for each paragraph in that search's paragraph list
-                    for( int paragraphNumber : paragraphSearches.get(i).paragraphs) {
-
-                        //if the paragraph in the search's list is in the include list
-                        if (includeParagraphs.contains(paragraphNumber)){
-
-                            //add the paragraph to the hold list
-                            holdParagraphList.add(paragraphNumber);
-                        }
-                    }
-
-                    if(holdParagraphList.isEmpty()){ return; } //if the hold list is empty, return with no highlights
-
-                    else { //if the hold list is not empty
-                        includeParagraphs.clear(); //clear the keep list
-                        includeParagraphs.addAll(holdParagraphList); //put the hold list in the keep list
-                        holdParagraphList.clear();//clear the hold list
-                    }
-
-                }
-
-                //if the keep list is populated, set highlight flag and color for each word for each search
-                if (!includeParagraphs.isEmpty()) {
-                    for (Search pS : paragraphSearches) { pS.setHighlightP(includeParagraphs); }
-                }
-            }
-
-        } // paragraphSearch
-
-        /** @param sentence true if getting list of sentences to remove
-         * @param paragraph true if getting list of paragraphs to remove
-         * @return list of sentence or paragraph index numbers to be removed based on tokenizer indexes
-         */
-        public List<Integer> removalList(boolean sentence, boolean paragraph){
-            List<Integer> removals = new ArrayList<>();
-            int len;
-            if(sentence){
-                len = tokenizer.sentenceStarts.size();
-                for(int i = 0; i < len; i++){ removals.add(i); }
-                tokenizer.allWords.forEach(w ->{
-                    if(removals.contains(w.sentenceIndex) && w.highlightFlag){
-                        removals.remove(removals.indexOf(w.sentenceIndex));
-                    }
-                });
-                statusBar.noticeLabel.setText("Removing " + removals.size() + "sentences... ");
-            }
-
-            else if(paragraph){
-                len = tokenizer.paragraphStarts.size();
-                for(int i = 0; i < len; i++){ removals.add(i); }
-                tokenizer.allWords.forEach(w ->{
-                    if(removals.contains(w.paragraph) && w.highlightFlag){
-                        removals.remove(removals.indexOf(w.paragraph));
-                    }
-                });
-                statusBar.noticeLabel.setText("Removing " + removals.size() + "paragraphs... ");
-            }
+        }
 
-            return removals;
+        /** @param visible true while the document is being indexed */
+        void showProgress(boolean visible){
+            progressBar.setValue(0);
+            progressBar.setVisible(visible);
+            cancelButton.setVisible(visible);
+        }
 
-        } // removalList
+        /** @param timer phases of the last open, lock, highlight or export */
+        void showPhases(PhaseTimer timer){
+            phaseLabel.setText(" " + timer.summary() + " ");
+            phaseLabel.setToolTipText(timer.details());
+        }
+    } // StatusBar
 
         //main method
         public static void main(String[] args) { new Main(); } // main
@@ -0,0 +1,36 @@
+/* last update : 10/18/2026
+PhaseEvent class - Flight Recorder event for one phase of a user action, made by PhaseTimer
+recorded when the application runs with -XX:StartFlightRecording, or a recording is started with jcmd
+ */
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("context.Phase")
+@Label("Phase")
+@Category("ConText")
+@Description("One phase of opening, locking, highlighting or exporting a document")
+public class PhaseEvent extends Event {
+    @Label("Action")
+    @Description("Open, Lock, Highlight or Export")
+    String action;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Document Length")
+    @Description("Characters in the document")
+    long documentLength;
+
+    @Label("Count")
+    @Description("Matches, words or pages the phase handled")
+    long count;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the thread running the phase")
+    @DataAmount
+    long allocated;
+} // PhaseEvent
@@ -0,0 +1,134 @@
+/* last update : 10/18/2026
+PhaseTimer class - times the phases of one user action, such as finding keywords and painting highlights in Highlight
+each phase also counts the bytes allocated by its thread and ends with a PhaseEvent for Flight Recorder
+phases of the same name are added together, the StatusBar shows the breakdown of the last action
+ */
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class PhaseTimer {
+    static final PhaseTimer OFF = new PhaseTimer(null, 0); // times nothing, for callers that do not show phases
+    private static final com.sun.management.ThreadMXBean THREADS = threads(); // null if allocations can not be counted
+    final String action;
+    long documentLength; // characters in the document, set once known
+    private final List<String> names = new ArrayList<>(); // phase names in the order they first began
+    private final List<long[]> totals = new ArrayList<>(); // nanoseconds, bytes allocated and count of each phase
+
+    /** @param a name of the action, such as "Highlight"
+     * @param length characters in the document, 0 if not known yet */
+    PhaseTimer(String a, long length){
+        action = a;
+        documentLength = length;
+    }
+
+    /** @return bean counting the bytes each thread allocates, or null if this JVM does not */
+    private static com.sun.management.ThreadMXBean threads(){
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if(bean instanceof com.sun.management.ThreadMXBean){
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()){ return threads; }
+            }
+        }
+        catch (LinkageError | UnsupportedOperationException e) { return null; } //not a HotSpot based JVM
+        return null;
+    }
+
+    /** @return bytes allocated so far by the calling thread, 0 if not counted */
+    static long allocatedBytes(){
+        return (THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()));
+    }
+
+    /** @param name name of the phase
+     * @return the running phase, end it on the same thread */
+    Phase begin(String name){ return new Phase(name); }
+
+    /** @param name name of the phase
+     * @param nanos time taken
+     * @param bytes bytes allocated
+     * @param count matches, words or pages handled
+     */
+    private synchronized void add(String name, long nanos, long bytes, long count){
+        int index = names.indexOf(name);
+        if(index < 0){
+            names.add(name);
+            totals.add(new long[3]);
+            index = names.size() - 1;
+        }
+        long[] total = totals.get(index);
+        total[0] += nanos;
+        total[1] += bytes;
+        total[2] += count;
+    }
+
+    /** @return milliseconds taken by every phase */
+    synchronized long totalMillis(){
+        long nanos = 0;
+        for(long[] total : totals){ nanos += total[0]; }
+        return nanos / 1_000_000;
+    }
+
+    /** @return the action's time and its slowest phase, such as "Highlight 85 ms (paint 70 ms)" */
+    synchronized String summary(){
+        int slowest = -1;
+        for(int p = 0; p < totals.size(); p++){
+            if(slowest < 0 || totals.get(p)[0] > totals.get(slowest)[0]){ slowest = p; }
+        }
+        if(slowest < 0){ return action + " " + totalMillis() + " ms"; }
+        return action + " " + totalMillis() + " ms (" + names.get(slowest) + " " + totals.get(slowest)[0] / 1_000_000 + " ms)";
+    }
+
+    /** @return one line per phase with its time, allocation and count, as HTML for a tool tip */
+    synchronized String details(){
+        StringBuilder details = new StringBuilder("<html>").append(action).append(", ").append(documentLength)
+                .append(" characters<br>");
+        for(int p = 0; p < names.size(); p++){
+            long[] total = totals.get(p);
+            details.append(names.get(p)).append(": ").append(total[0] / 1_000_000).append(" ms, ")
+                    .append(String.format(Locale.ROOT, "%.1f", total[1] / 1048576.0)).append(" MB allocated, ")
+                    .append(total[2]).append(" counted<br>");
+        }
+        return details.append("</html>").toString();
+    }
+
+    //one running phase, timed from begin until end
+    class Phase {
+        private final String name;
+        private final long startNanos, startBytes;
+        private final PhaseEvent event;
+
+        /** @param n name of the phase */
+        private Phase(String n){
+            name = n;
+            if(action == null){
+                startNanos = startBytes = 0;
+                event = null;
+                return;
+            }
+            event = new PhaseEvent();
+            event.begin();
+            startBytes = allocatedBytes();
+            startNanos = System.nanoTime();
+        }
+
+        /** @param count matches, words or pages the phase handled */
+        void end(long count){
+            if(action == null){ return; }
+            long nanos = System.nanoTime() - startNanos, bytes = allocatedBytes() - startBytes;
+            add(name, nanos, bytes, count);
+
+            event.end();
+            if(event.shouldCommit()){
+                event.action = action;
+                event.phase = name;
+                event.documentLength = documentLength;
+                event.count = count;
+                event.allocated = bytes;
+                event.commit();
+            }
+        }
+    } // Phase
+
+} // PhaseTimer
@@ -0,0 +1,310 @@
+/* last update : 10/18/2026
+Query class - search box text joining phrases with AND, OR, NOT and parentheses, answered from the Tokenizer's postings
+words not separated by an operator form one phrase, NOT binds tightest then AND then OR, and a missing operator means AND
+operators are only read in upper case, so "and", "or" and "not" are still searched for, and quoted words are always a phrase
+text without an operator is not a query, so parentheses in it are searched for as typed
+a query holds or not in each unit of its search type - a sentence, a paragraph or the whole document - one bit per unit
+AND starts from its rarest operand by posting counts and stops once no unit is left, NOT is a difference of unit bitmaps
+the words highlighted are the matches of phrases outside a NOT, in the units where the operators above them hold
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+public class Query {
+    enum Operator { PHRASE, AND, OR, NOT }
+    private final List<Token> tokens; // tokens of the text, only used while parsing
+    private int next = 0; // index of the next token to parse
+    private final Node root;
+
+    /** @param text search box text
+     * @return true if the text uses AND, OR or NOT outside quotes, so it is read as a query */
+    static boolean isQuery(String text){
+        for(Token token : tokenize(text)){
+            if(!token.word && !token.is("(") && !token.is(")")){ return true; }
+        }
+        return false;
+    }
+
+    /** @param text search box text
+     * @throws IllegalArgumentException with a message for the user if the query is not well formed
+     */
+    Query(String text){
+        tokens = tokenize(text);
+        if(tokens.isEmpty()){ throw new IllegalArgumentException("The query is empty."); }
+        root = or();
+        if(next < tokens.size()){ throw new IllegalArgumentException("The query has a \")\" without a \"(\"."); }
+    }
+
+    /** @param text search box text
+     * @return words, operators and parentheses - words are stripped of ending punctuation like keywords */
+    private static List<Token> tokenize(String text){
+        List<Token> tokens = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean quoted = false;
+        for(int i = 0; i <= text.length(); i++){
+            char c = (i < text.length() ? text.charAt(i) : ' ');
+            boolean parenthesis = !quoted && (c == '(' || c == ')');
+            if(Character.isWhitespace(c) || c == '"' || parenthesis){
+                if(word.length() > 0){
+                    String keyword = Search.keyword(word.toString());
+                    boolean operator = !quoted && (keyword.equals("AND") || keyword.equals("OR") || keyword.equals("NOT"));
+                    if(!keyword.isEmpty()){ tokens.add(new Token(keyword, !operator)); }
+                    word.setLength(0);
+                }
+                if(c == '"'){ quoted = !quoted; }
+                if(parenthesis){ tokens.add(new Token(String.valueOf(c), false)); }
+            }
+            else { word.append(c); }
+        }
+        return tokens;
+    }
+
+    //or := and (OR and)*
+    private Node or(){
+        List<Node> operands = new ArrayList<>();
+        operands.add(and());
+        while(next < tokens.size() && tokens.get(next).is("OR")){
+            next++;
+            operands.add(and());
+        }
+        return (operands.size() == 1 ? operands.get(0) : new Node(Operator.OR, operands, null));
+    }
+
+    //and := unary (AND? unary)*
+    private Node and(){
+        List<Node> operands = new ArrayList<>();
+        operands.add(unary());
+        while(next < tokens.size()){
+            Token token = tokens.get(next);
+            if(token.is("AND")){ next++; }
+            else if(!token.word && !token.is("NOT") && !token.is("(")){ break; }
+            operands.add(unary());
+        }
+        return (operands.size() == 1 ? operands.get(0) : new Node(Operator.AND, operands, null));
+    }
+
+    //unary := NOT unary | ( or ) | word+
+    private Node unary(){
+        if(next >= tokens.size()){ throw new IllegalArgumentException("The query ends where a phrase was expected."); }
+        Token token = tokens.get(next++);
+        if(token.is("NOT")){
+            List<Node> operand = new ArrayList<>();
+            operand.add(unary());
+            return new Node(Operator.NOT, operand, null);
+        }
+        if(token.is("(")){
+            Node group = or();
+            if(next >= tokens.size() || !tokens.get(next).is(")")){
+                throw new IllegalArgumentException("The query has a \"(\" without a \")\".");
+            }
+            next++;
+            return group;
+        }
+        if(!token.word){ throw new IllegalArgumentException("\"" + token.text + "\" needs a phrase before it in the query."); }
+
+        List<String> keywords = new ArrayList<>();
+        keywords.add(token.text);
+        while(next < tokens.size() && tokens.get(next).word){ keywords.add(tokens.get(next++).text); }
+        return new Node(Operator.PHRASE, null, keywords);
+    }
+
+    /** answers the query over the units of a search type
+     * @param t Tokenizer to search
+     * @param s search type giving the units
+     * @param e exact match flag
+     * @param m match case flag
+     * @param timer times finding the keywords and walking the phrases
+     * @return words to highlight, with the units where the query holds as the type's sentence or paragraph set
+     */
+    Search.Found found(Tokenizer t, SearchType s, boolean e, boolean m, PhaseTimer timer){
+        Plan plan = new Plan(t, s, e, m, timer);
+        BitSet units = plan.units(root);
+
+        //words of different phrases may overlap, so they are sorted and each is kept once
+        IntList words = new IntList();
+        plan.collect(root, units, words);
+        Arrays.sort(words.data, 0, words.size);
+        int kept = 0;
+        for(int k = 0; k < words.size; k++){
+            if(kept == 0 || words.data[kept - 1] != words.data[k]){ words.data[kept++] = words.data[k]; }
+        }
+        words.size = kept;
+
+        Search.Found found = new Search.Found(t.generation, words);
+        found.addUnits(t);
+        if(s == SearchType.SENTENCES){ found.sentences.or(units); }
+        if(s == SearchType.PARAGRAPH){ found.paragraphs.or(units); }
+        return found;
+    }
+
+    /** @return the query with every phrase quoted and every group in parentheses, the same for queries that mean the same */
+    @Override
+    public String toString(){ return root.toString(); }
+
+    //a word or an operator of the query text
+    private static class Token {
+        final String text;
+        final boolean word; // false for AND, OR, NOT and parentheses
+
+        Token(String t, boolean w){
+            text = t;
+            word = w;
+        }
+
+        boolean is(String operator){ return !word && text.equals(operator); }
+    } // Token
+
+    //a phrase or an operator and its operands
+    private static class Node {
+        final Operator operator;
+        final List<Node> operands; // null for a phrase
+        final List<String> keywords; // words of a phrase, null for an operator
+
+        Node(Operator o, List<Node> n, List<String> k){
+            operator = o;
+            operands = n;
+            keywords = k;
+        }
+
+        @Override
+        public String toString(){
+            if(operator == Operator.PHRASE){ return "\"" + String.join(" ", keywords) + "\""; }
+            if(operator == Operator.NOT){ return "NOT " + operands.get(0); }
+            StringBuilder text = new StringBuilder("(");
+            for(int i = 0; i < operands.size(); i++){
+                if(i > 0){ text.append(' ').append(operator).append(' '); }
+                text.append(operands.get(i));
+            }
+            return text.append(')').toString();
+        }
+    } // Node
+
+    //one run of the query over one Tokenizer - keeps the units and words of each node it answered
+    private static class Plan {
+        private final Tokenizer tokenizer;
+        private final SearchType searchType;
+        private final boolean exactMatch, caseMatch;
+        private final PhaseTimer timer;
+        private final int unitCount;
+        private final IdentityHashMap<Node, BitSet> units = new IdentityHashMap<>(); // of nodes answered
+        private final IdentityHashMap<Node, IntList> words = new IdentityHashMap<>(); // of phrases found
+
+        Plan(Tokenizer t, SearchType s, boolean e, boolean m, PhaseTimer p){
+            tokenizer = t;
+            searchType = s;
+            exactMatch = e;
+            caseMatch = m;
+            timer = p;
+            unitCount = s.unitCount(t);
+        }
+
+        /** @param node part of the query
+         * @return upper bound of the words the node matches, from posting counts - nothing is merged or walked */
+        private long estimate(Node node){
+            switch (node.operator) {
+                case PHRASE:
+                    long rarest = Long.MAX_VALUE;
+                    for(String keyword : node.keywords){
+                        rarest = Math.min(rarest, tokenizer.frequency(keyword, exactMatch, caseMatch));
+                        if(rarest == 0){ break; }
+                    }
+                    return rarest * node.keywords.size();
+                case AND:
+                    long least = tokenizer.wordCount();
+                    for(Node operand : node.operands){
+                        if(operand.operator != Operator.NOT){ least = Math.min(least, estimate(operand)); }
+                    }
+                    return least;
+                case OR:
+                    long sum = 0;
+                    for(Node operand : node.operands){ sum += estimate(operand); }
+                    return sum;
+                default: return tokenizer.wordCount();
+            }
+        }
+
+        /** @param node part of the query
+         * @return units where the node holds, kept for collect - the caller may not change them */
+        BitSet units(Node node){
+            BitSet held;
+            switch (node.operator) {
+                case PHRASE:
+                    IntList found = Search.phraseWords(tokenizer, node.keywords, exactMatch, caseMatch, timer);
+                    words.put(node, found);
+                    held = new BitSet(unitCount);
+                    for(int k = 0; k < found.size(); k++){ held.set(searchType.unitOf(tokenizer, found.get(k))); }
+                    break;
+
+                case AND:
+                    //rarest operand first, each later one can only remove units, NOT operands last as differences
+                    List<Node> positive = new ArrayList<>(), negative = new ArrayList<>();
+                    for(Node operand : node.operands){ (operand.operator == Operator.NOT ? negative : positive).add(operand); }
+                    long[] estimates = new long[positive.size()];
+                    Integer[] order = new Integer[positive.size()];
+                    for(int i = 0; i < order.length; i++){
+                        estimates[i] = estimate(positive.get(i));
+                        order[i] = i;
+                    }
+                    Arrays.sort(order, (a, b) -> Long.compare(estimates[a], estimates[b]));
+
+                    held = null;
+                    for(int i = 0; i < order.length && (held == null || !held.isEmpty()); i++){
+                        BitSet operand = units(positive.get(order[i]));
+                        if(held == null){ held = (BitSet) operand.clone(); }
+                        else { held.and(operand); }
+                    }
+                    if(held == null){ held = everyUnit(); }
+                    for(int i = 0; i < negative.size() && !held.isEmpty(); i++){
+                        held.andNot(units(negative.get(i).operands.get(0)));
+                    }
+                    break;
+
+                case OR:
+                    //every operand is answered even once all units hold, since each one's words are highlighted
+                    held = new BitSet(unitCount);
+                    for(Node operand : node.operands){ held.or(units(operand)); }
+                    break;
+
+                default:
+                    held = everyUnit();
+                    held.andNot(units(node.operands.get(0)));
+                    break;
+            }
+            units.put(node, held);
+            return held;
+        }
+
+        private BitSet everyUnit(){
+            BitSet every = new BitSet(unitCount);
+            every.set(0, unitCount);
+            return every;
+        }
+
+        /** adds the words of every phrase under a node that are in units where the node and all above it hold
+         * @param node part of the query, skipped if it was never answered or is a NOT
+         * @param allowed units where every node above holds
+         * @param into where the words go, in no order
+         */
+        void collect(Node node, BitSet allowed, IntList into){
+            BitSet held = units.get(node);
+            if(held == null || node.operator == Operator.NOT){ return; }
+            BitSet here = (BitSet) allowed.clone();
+            here.and(held);
+            if(here.isEmpty()){ return; }
+
+            if(node.operator == Operator.PHRASE){
+                IntList found = words.get(node);
+                for(int k = 0; k < found.size(); k++){
+                    if(here.get(searchType.unitOf(tokenizer, found.get(k)))){ into.add(found.get(k)); }
+                }
+            }
+            else {
+                for(Node operand : node.operands){ collect(operand, here, into); }
+            }
+        }
+    } // Plan
+
+} // Query
@@ -1,149 +1,547 @@
-/* last update : 12/11/2021
+/* last update : 10/18/2026
 Search class - searches for matches using data from search boxes and Tokenizer class
-
+highlightAll runs a set of searches together and flags the words to highlight, for the window and for Batch
+the words each search finds are remembered by its Tokenizer, so searches repeated on the next Highlight click are not run again
+finding keywords, walking phrases and flagging words are timed as phases of a PhaseTimer when one is given
+search box text using AND, OR or NOT is answered by a Query, over the search type's sentences or paragraphs
+proximity searches highlight every window of at most NEAR/k words (10 by default) holding all of their keywords
  */
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Scanner;
 
-enum SearchType{ WHOLE_DOCUMENT, SENTENCES, PARAGRAPH }
-
 public class Search {
-    public static String[] searchTypes = {"Individual Search", "Same Paragraph Search", "Same Sentence Search"};
+    public static String[] searchTypes = {"Individual Search", "Same Paragraph Search", "Same Sentence Search",
+            "Proximity Search"};
+    static final int DEFAULT_DISTANCE = 10; // words in a proximity window when no NEAR/k is given
+    static final int MAX_PROXIMITY_KEYWORDS = 64; // one bit per keyword in each word's mask
     public Tokenizer tokenizer;
     public List<String> keywords;
     public Color color;
     public boolean exactMatch, caseMatch;
     SearchType searchType;
-    List<Tokenizer.Word> foundWords;
-    List<Integer> paragraphs = new ArrayList<>(), sentences = new ArrayList<>();
+    Query query; // boolean query of the search box text, null if the text is a single phrase
+    int distance = DEFAULT_DISTANCE; // most words in a window of a proximity search
+    IntList foundWords; // word indexes of matched words, may be shared with other searches so never changed
+    BitSet paragraphs = new BitSet(), sentences = new BitSet(); // paragraphs and sentences holding a found word, also shared
+    IntList highlightedWords = new IntList(); // word indexes this search flagged, in the order they were flagged
 
     /** @param t Tokenizer instantiated at last document lock
      * @param k keyword box text (to be broken up when Search instantiated)
-     * @param s WHOLE_DOCUMENT, SENTENCES, PARAGRAPH
+     * @param s WHOLE_DOCUMENT, SENTENCES, PARAGRAPH, PROXIMITY
      * @param c color
      * @param e exact match flag
      * @param m match case flag
+     * @throws IllegalArgumentException with a message for the user if the text is a query that is not well formed
      * */
     Search(Tokenizer t, String k, SearchType s, Color c, boolean e, boolean m){
         searchType = s;
         tokenizer = t;
         keywords = new ArrayList<>();
         setKeywords(k);
+        if(s == SearchType.PROXIMITY){ distance = takeDistance(keywords); }
+        else if(Query.isQuery(k)){ query = new Query(k); }
         color = c;
-        foundWords = new ArrayList<>();
+        foundWords = new IntList();
         exactMatch = e;
         caseMatch = m;
     }
 
+    /** runs searches together and flags the words they highlight in their Tokenizer
+     *  paragraph and sentence searches only highlight where every search of the same type has a match
+     * @param searches searches over the same Tokenizer
+     */
+    static void highlightAll(List<Search> searches){ highlightAll(searches, PhaseTimer.OFF); }
+
+    /** runs searches together and flags the words they highlight in their Tokenizer
+     * @param searches searches over the same Tokenizer
+     * @param timer times finding and flagging the words
+     */
+    static void highlightAll(List<Search> searches, PhaseTimer timer){
+        List<Search> paragraphSearches = new ArrayList<>(), sentenceSearches = new ArrayList<>(),
+                individualSearches = new ArrayList<>();
+        for (Search search : searches) {
+            switch (search.searchType) {
+                case PARAGRAPH: paragraphSearches.add(search); break;
+                case SENTENCES: sentenceSearches.add(search); break;
+                default: individualSearches.add(search); break;
+            }
+        }
+
+        //GET LISTS OF ALL WORDS IN MAP
+        for (Search search : searches) { search.wordListInMap(timer); }
+
+        //PARAGRAPH SEARCH
+        if(!paragraphSearches.isEmpty()) {
+            PhaseTimer.Phase phase = timer.begin("paragraphs");
+            paragraphSearch(paragraphSearches);
+            phase.end(highlightedCount(paragraphSearches));
+        }
+
+        //SENTENCE SEARCH
+        if(!sentenceSearches.isEmpty()) {
+            PhaseTimer.Phase phase = timer.begin("sentences");
+            sentenceSearch(sentenceSearches);
+            phase.end(highlightedCount(sentenceSearches));
+        }
+
+        //INDIVIDUAL SEARCH
+        //set highlight flag and color for each word for each individual search
+        if(!individualSearches.isEmpty()) {
+            PhaseTimer.Phase phase = timer.begin("flag");
+            for (Search individualSearch : individualSearches) { individualSearch.setHighlightI(); }
+            phase.end(highlightedCount(individualSearches));
+        }
+    }
+
+    /** @param searches searches that were highlighted
+     * @return number of words they flagged */
+    private static long highlightedCount(List<Search> searches){
+        long count = 0;
+        for (Search search : searches) { count += search.highlightedWords.size(); }
+        return count;
+    }
+
+    //execute search for words that match in same sentence
+    /** @param sentenceSearches all searches that require the context of same sentence*/
+    static void sentenceSearch(List<Search> sentenceSearches){
+
+        //sentences holding a match for every search - AND of each search's sentence set, 64 sentences at a time
+        BitSet includeSentences = (BitSet) sentenceSearches.get(0).sentences.clone();
+        for (int i = 1; i < sentenceSearches.size() && !includeSentences.isEmpty(); i++) {
+            includeSentences.and(sentenceSearches.get(i).sentences);
+        }
+
+        //if the keep set is populated, set highlight flag and color for each word for each search
+        if (!includeSentences.isEmpty()) {
+            for (Search sS : sentenceSearches) { sS.setHighlightS(includeSentences); }
+        }
+
+    } // sentenceSearch
+
+    //execute search for words that match in same paragraph
+    /** @param paragraphSearches all searches that require the context of same paragraph */
+    static void paragraphSearch(List<Search> paragraphSearches){
+
+        //paragraphs holding a match for every search - AND of each search's paragraph set, 64 paragraphs at a time
+        BitSet includeParagraphs = (BitSet) paragraphSearches.get(0).paragraphs.clone();
+        for (int i = 1; i < paragraphSearches.size() && !includeParagraphs.isEmpty(); i++) {
+            includeParagraphs.and(paragraphSearches.get(i).paragraphs);
+        }
+
+        //if the keep set is populated, set highlight flag and color for each word for each search
+        if (!includeParagraphs.isEmpty()) {
+            for (Search pS : paragraphSearches) { pS.setHighlightP(includeParagraphs); }
+        }
+
+    } // paragraphSearch
+
+    /** checks search box text without searching, so it can be reported before any document is opened
+     * @param text keyword box text
+     * @param s search type the text is for
+     * @throws IllegalArgumentException with a message for the user if the text is a query or NEAR/k that is not well formed
+     * */
+    static void check(String text, SearchType s){
+        if(s == SearchType.PROXIMITY){ takeDistance(splitKeywords(text)); }
+        else if(Query.isQuery(text)){ new Query(text); }
+    }
+
     /**@param text text from search box*/
-    public void setKeywords(String text) {
+    public void setKeywords(String text) { keywords.addAll(splitKeywords(text)); }
+
+    /** @param text text from search box
+     * @return the words of the text, each without ending punctuation */
+    private static List<String> splitKeywords(String text){
+        List<String> words = new ArrayList<>();
         Scanner scanner = new Scanner(text);
-        String keyword;
-        while (scanner.hasNext()) {
-            keyword = scanner.next();
+        while (scanner.hasNext()) { words.add(keyword(scanner.next())); }
+        return words;
+    }
 
-            //save keywords without ending punctuation
-            if(keyword.endsWith(".") || keyword.endsWith("?") || keyword.endsWith("!") || keyword.endsWith(",")){
-                keyword = keyword.substring(0, keyword.length() - 1);
-            }
-            keywords.add(keyword);
+    /** takes the NEAR/k keyword of a proximity search as its window size, a plain NEAR is searched for like any word
+     * @param keywords keywords of a proximity search, left without the NEAR/k keyword
+     * @return most words in a window
+     * @throws IllegalArgumentException with a message for the user if k is not a whole number of at least 1, or there
+     *          is more than one NEAR/k
+     */
+    private static int takeDistance(List<String> keywords){
+        int distance = DEFAULT_DISTANCE;
+        boolean given = false;
+        for (int i = keywords.size() - 1; i >= 0; i--) {
+            String keyword = keywords.get(i);
+            if(!keyword.startsWith("NEAR/")){ continue; }
+            if(given){ throw new IllegalArgumentException("A proximity search can hold only one NEAR/k."); }
+            try { distance = Integer.parseInt(keyword.substring(5)); }
+            catch (NumberFormatException e) { distance = 0; }
+            if(distance < 1){ throw new IllegalArgumentException("NEAR/k needs a whole number of words k of at least 1."); }
+            given = true;
+            keywords.remove(i);
+        }
+        if(keywords.size() > MAX_PROXIMITY_KEYWORDS){
+            throw new IllegalArgumentException("A proximity search can hold at most " + MAX_PROXIMITY_KEYWORDS + " keywords.");
+        }
+        return distance;
+    }
+
+    /** @param word word typed in a search box
+     * @return the word without ending punctuation */
+    static String keyword(String word){
+        if(word.endsWith(".") || word.endsWith("?") || word.endsWith("!") || word.endsWith(",")){
+            return word.substring(0, word.length() - 1);
         }
+        return word;
+    }
+
+    /** @return the keywords and match options, the same for searches that find the same words
+     *          a query's units depend on the search type, so it is part of a query's key */
+    private String resultKey(){
+        String text = String.join(" ", keywords);
+        if(query != null){ text = searchType + " " + query; }
+        else if(searchType == SearchType.PROXIMITY){ text = searchType + " " + distance + " " + text; }
+        return (exactMatch ? 'e' : '-') + (caseMatch ? "c " + text : "- " + text.toLowerCase(Locale.ROOT));
     }
 
     //finds instances of consecutive matches of keywords in word map
-    void wordListInMap(){
-        List<Tokenizer.Word> holderList = new ArrayList<>(), keepWords;
+    //uses the words found by the same search before, as long as the Tokenizer's words did not change since
+    void wordListInMap(){ wordListInMap(PhaseTimer.OFF); }
 
+    /** @param timer times finding the keywords and walking the phrases */
+    void wordListInMap(PhaseTimer timer){
         //don't search if no keywords were entered
         if(keywords.size() < 1) { return; }
 
-        else {
-
-            //get a list of each word in map that contains the first keyword
-            keepWords = new ArrayList<>(tokenizer.found(keywords.get(0), exactMatch, caseMatch));
+        String key = resultKey();
+        Found found = tokenizer.searchResults.get(key);
+        if(found == null || found.generation != tokenizer.generation){
+            if(query != null){ found = query.found(tokenizer, searchType, exactMatch, caseMatch, timer); }
+            else {
+                found = new Found(tokenizer.generation, (searchType == SearchType.PROXIMITY
+                        ? windowWords(tokenizer, keywords, distance, exactMatch, caseMatch, timer)
+                        : phraseWords(tokenizer, keywords, exactMatch, caseMatch, timer)));
+                found.addUnits(tokenizer);
+            }
+            tokenizer.searchResults.put(key, found);
+        }
 
-            //if more than one keyword is entered
-            if (keywords.size() > 1) {
+        foundWords = found.words;
+        paragraphs = found.paragraphs;
+        sentences = found.sentences;
+    }
 
-                //for each subsequent keyword
-                for (int i = 1; i < keywords.size(); i++) {
-                    String nextKeyWord = keywords.get(i);
+    /** @param tokenizer Tokenizer to search
+     * @param keywords words of the phrase, in order
+     * @param exactMatch exact match flag
+     * @param caseMatch match case flag
+     * @param timer times finding the keywords and walking the phrases
+     * @return ascending word indexes of every word in a match of the keywords */
+    static IntList phraseWords(Tokenizer tokenizer, List<String> keywords, boolean exactMatch, boolean caseMatch,
+                               PhaseTimer timer){
+        IntList keepWords;
+        PhaseTimer.Phase phase = timer.begin("found");
 
-                    //and for each word in keep list
-                    for (Tokenizer.Word keptWord : keepWords) {
+        //a single keyword matches wherever the word matches
+        if(keywords.size() == 1) {
+            keepWords = tokenizer.found(keywords.get(0), exactMatch, caseMatch);
+            phase.end(keepWords.size());
+        }
 
-                        //if the next word in the document matches the next keyword
-                        if (tokenizer.nextWordMatch(keptWord, nextKeyWord, exactMatch, caseMatch)) {
+        else {
+            int count = keywords.size();
 
-                            //hold that next word
-                            holderList.add(tokenizer.nextWord(keptWord));
-                        }
-                    }
-                    keepWords.clear();
-                    keepWords.addAll(holderList);
-                    holderList.clear();
+            //get the ascending positions of each keyword, stopping if one is not in the document
+            IntList[] positions = new IntList[count];
+            Integer[] order = new Integer[count];
+            long positionCount = 0;
+            for (int i = 0; i < count; i++) {
+                positions[i] = tokenizer.found(keywords.get(i), exactMatch, caseMatch);
+                positionCount += positions[i].size();
+                if(positions[i].isEmpty()){
+                    phase.end(positionCount);
+                    return new IntList(1);
                 }
+                order[i] = i;
+            }
+            phase.end(positionCount);
+            phase = timer.begin("phrase");
+
+            //start from the rarest keyword, so the phrase costs about as much as its least common word
+            Arrays.sort(order, (a, b) -> Integer.compare(positions[a].size(), positions[b].size()));
 
-                //if list of words to keep is not empty,
-                if (!keepWords.isEmpty()) {
-                    List<Tokenizer.Word> lastWord = new ArrayList<>(keepWords);
-                    holderList.clear();
-
-                    for (int i = 1; i < keywords.size(); i++) { // for length of list of KEY words
-                        for(Tokenizer.Word last : lastWord) { // for each token in list of KEPT words
-                            holderList.add(tokenizer.wordBefore(last)); // add the previous token to the pass off list
-                        }
-                        keepWords.addAll(holderList); //add previous word token to holder list
-                        lastWord.clear(); //clear token list
-                        lastWord.addAll(holderList); //repopulate token list with new tokens
-                        holderList.clear();
-                    }
+            //candidate phrase starts - position of the rarest keyword less its offset within the phrase
+            int rarest = order[0];
+            IntList starts = new IntList(positions[rarest].size());
+            for (int p = 0; p < positions[rarest].size(); p++) {
+                int start = positions[rarest].get(p) - rarest;
+                if(start >= 0 && start + count <= tokenizer.wordCount()){ starts.add(start); }
+            }
+
+            //keep the starts where each other keyword is found at its offset, next rarest first
+            for (int o = 1; o < count && !starts.isEmpty(); o++) {
+                starts = alignedIntersection(starts, positions[order[o]], order[o]);
+            }
+
+            //each phrase found contributes all of its words, once each where phrases overlap
+            keepWords = new IntList(starts.size() * count + 1);
+            for (int p = 0; p < starts.size(); p++) {
+                for (int i = 0; i < count; i++) {
+                    int word = starts.get(p) + i;
+                    if(keepWords.isEmpty() || word > keepWords.get(keepWords.size() - 1)){ keepWords.add(word); }
                 }
             }
+            phase.end(starts.size());
         }
+        return keepWords;
+    }
 
-        if(keepWords.isEmpty()){ return; }
+    /** moves a keyword down a heap of keywords until no keyword below it has a lower next position
+     * @param heap keyword indexes, each one's next position no lower than the one above it, except at i
+     * @param i place in the heap of the keyword to move
+     * @param size number of keywords in the heap
+     * @param positions ascending positions of each keyword
+     * @param next index of each keyword's next position
+     */
+    private static void siftDown(int[] heap, int i, int size, IntList[] positions, int[] next){
+        int keyword = heap[i], position = positions[keyword].get(next[keyword]);
+        for (int child = 2 * i + 1; child < size; child = 2 * i + 1) {
+            if(child + 1 < size && positions[heap[child + 1]].get(next[heap[child + 1]])
+                    < positions[heap[child]].get(next[heap[child]])){ child++; }
+            if(positions[heap[child]].get(next[heap[child]]) >= position){ break; }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = keyword;
+    }
 
-        else {
-            keepWords.forEach(word -> {
-                if(!paragraphs.contains(word.paragraph)){ paragraphs.add(word.paragraph); }
-                if(!sentences.contains(word.sentenceIndex)){ sentences.add(word.sentenceIndex); }
-            });
+    /** @param tokenizer Tokenizer to search
+     * @param keywords words that must all be in a window, in any order
+     * @param distance most words in a window
+     * @param exactMatch exact match flag
+     * @param caseMatch match case flag
+     * @param timer times finding the keywords and sliding the window
+     * @return ascending word indexes of every word in a window of at most distance words holding every keyword */
+    static IntList windowWords(Tokenizer tokenizer, List<String> keywords, int distance, boolean exactMatch,
+                               boolean caseMatch, PhaseTimer timer){
+        int count = keywords.size();
+
+        //get the ascending positions of each keyword, stopping if one is not in the document
+        PhaseTimer.Phase phase = timer.begin("found");
+        IntList[] positions = new IntList[count];
+        long positionCount = 0;
+        for (int i = 0; i < count; i++) {
+            positions[i] = tokenizer.found(keywords.get(i), exactMatch, caseMatch);
+            positionCount += positions[i].size();
+            if(positions[i].isEmpty()){
+                phase.end(positionCount);
+                return new IntList(1);
+            }
+        }
+        phase.end(positionCount);
+        phase = timer.begin("window");
+
+        //merge the keywords' positions into one ascending run of distinct words, noting which keywords each word matches
+        //the keyword with the lowest next position is at the top of a heap, so each position costs the log of the keywords
+        IntList merged = new IntList((int) positionCount);
+        long[] masks = new long[(int) positionCount];
+        int[] next = new int[count], heap = new int[count];
+        int heapSize = count;
+        for (int i = 0; i < count; i++) { heap[i] = i; }
+        for (int i = count / 2 - 1; i >= 0; i--) { siftDown(heap, i, heapSize, positions, next); }
+        while(heapSize > 0){
+            int owner = heap[0];
+            int position = positions[owner].get(next[owner]++);
+            if(merged.isEmpty() || merged.get(merged.size() - 1) != position){ merged.add(position); }
+            masks[merged.size() - 1] |= 1L << owner;
+            if(next[owner] == positions[owner].size()){ heap[0] = heap[--heapSize]; }
+            if(heapSize > 0){ siftDown(heap, 0, heapSize, positions, next); }
         }
 
-        foundWords.addAll(keepWords);
+        //slide a window of words within distance of each word over the run - when each keyword can have a word of its own
+        //in the window, every word from the window's first word to this one is kept
+        IntList keepWords = new IntList();
+        Window window = new Window(masks, count);
+        int kept = -1; // last word added to keepWords
+        for (int right = 0; right < merged.size(); right++) {
+            int end = merged.get(right);
+            while(end - merged.get(window.from) >= distance){ window.remove(); }
+            window.add();
+
+            if(window.matched == count){
+                for (int word = Math.max(merged.get(window.from), kept + 1); word <= end; word++) { keepWords.add(word); }
+                kept = end;
+            }
+        }
+        phase.end(keepWords.size());
+        return keepWords;
+    }
+
+    /** @param starts ascending candidate phrase starts
+     * @param positions ascending positions of one keyword
+     * @param offset position of that keyword within the phrase
+     * @return the starts for which the keyword is found at start + offset
+     */
+    private static IntList alignedIntersection(IntList starts, IntList positions, int offset){
+        IntList kept = new IntList(starts.size());
+        int from = 0;
+        for (int s = 0; s < starts.size() && from < positions.size(); s++) {
+            int target = starts.get(s) + offset;
+            from = gallop(positions, from, target);
+            if(from < positions.size() && positions.get(from) == target){ kept.add(starts.get(s)); }
+        }
+        return kept;
+    }
+
+    /** @param list ascending values
+     * @param from index to start searching from
+     * @param target value to find
+     * @return index of the first value at or after 'from' that is not less than target, or list size if none
+     */
+    private static int gallop(IntList list, int from, int target){
+        if(from >= list.size() || list.get(from) >= target){ return from; }
+
+        //double the step until it passes the target, then binary search the last step
+        int low = from, step = 1;
+        while(low + step < list.size() && list.get(low + step) < target){
+            low += step;
+            step <<= 1;
+        }
+        int high = Math.min(low + step, list.size());
+        low++;
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(list.get(middle) < target){ low = middle + 1; }
+            else { high = middle; }
+        }
+        return low;
     }
 
     //highlighter for paragraph searches
-    /**@param highlights indexes of words to highlight*/
-    void setHighlightP(List<Integer> highlights){
-        foundWords.forEach(foundWord -> {
-            if(highlights.contains(foundWord.paragraph)){
-                foundWord.highlightFlag = true;
-                foundWord.highlightColor = color;
-            }
-        });
+    /**@param highlights indexes of paragraphs to highlight*/
+    void setHighlightP(BitSet highlights){
+        for (int k = 0; k < foundWords.size(); k++) {
+            int foundWord = foundWords.get(k);
+            if(highlights.get(tokenizer.wordParagraphs.get(foundWord))){ highlight(foundWord); }
+        }
     }
 
     //highlighter for same sentence searches
-    /**@param highlights indexes of words to highlight*/
-    void setHighlightS(List<Integer> highlights){
-        foundWords.forEach(foundWord -> {
-            if(highlights.contains(foundWord.sentenceIndex)){
-                foundWord.highlightFlag = true;
-                foundWord.highlightColor = color;
-            }
-        });
+    /**@param highlights indexes of sentences to highlight*/
+    void setHighlightS(BitSet highlights){
+        for (int k = 0; k < foundWords.size(); k++) {
+            int foundWord = foundWords.get(k);
+            if(highlights.get(tokenizer.wordSentences.get(foundWord))){ highlight(foundWord); }
+        }
     }
 
     //highlighter for individual searches
     void setHighlightI(){
-        foundWords.forEach(foundWord -> {
-            foundWord.highlightFlag = true;
-            foundWord.highlightColor = color;
-        });
+        for (int k = 0; k < foundWords.size(); k++) { highlight(foundWords.get(k)); }
+    }
+
+    /**@param word index of word to flag with this search's color*/
+    private void highlight(int word){
+        tokenizer.highlightFlags.set(word);
+        tokenizer.highlightColors[word] = color;
+        highlightedWords.add(word);
     }
 
+    //words of a proximity window, each matched to at most one keyword so a word never counts for two
+    //the matching is kept as large as it can be while words come in at the end and leave at the start
+    private static class Window {
+        private final long[] masks; // keywords each word of the run matches
+        private final int[] wordKeyword; // keyword each word is matched to, -1 if none
+        private final int[] keywordWord; // word each keyword is matched to, -1 if none
+        private final int[] seen; // stamp of the last search that visited each keyword
+        private int stamp = 0;
+        int from = 0, to = 0; // words of the run in the window
+        int matched = 0; // keywords matched to a word
+
+        /** @param m keywords each word of the run matches, one bit per keyword
+         * @param keywordCount number of keywords */
+        Window(long[] m, int keywordCount){
+            masks = m;
+            wordKeyword = new int[m.length];
+            keywordWord = new int[keywordCount];
+            seen = new int[keywordCount];
+            Arrays.fill(wordKeyword, -1);
+            Arrays.fill(keywordWord, -1);
+        }
+
+        //adds the next word of the run, a larger matching can only go through it
+        void add(){
+            int word = to++;
+            stamp++;
+            if(matched < keywordWord.length && matchWord(word)){ matched++; }
+        }
+
+        //removes the first word of the run, a larger matching can only go through the keyword it had
+        void remove(){
+            int word = from++, keyword = wordKeyword[word];
+            if(keyword < 0){ return; }
+            wordKeyword[word] = -1;
+            keywordWord[keyword] = -1;
+            matched--;
+            stamp++;
+            if(matchKeyword(keyword)){ matched++; }
+        }
+
+        /** @param word word in the window with no keyword
+         * @return true if it was given a keyword, possibly moving other words to other keywords */
+        private boolean matchWord(int word){
+            for (int k = 0; k < keywordWord.length; k++) {
+                if((masks[word] >>> k & 1) == 0 || seen[k] == stamp){ continue; }
+                seen[k] = stamp;
+                if(keywordWord[k] < 0 || matchWord(keywordWord[k])){
+                    keywordWord[k] = word;
+                    wordKeyword[word] = k;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** @param keyword keyword with no word
+         * @return true if it was given a word in the window, possibly moving other keywords to other words */
+        private boolean matchKeyword(int keyword){
+            seen[keyword] = stamp;
+            for (int word = from; word < to; word++) {
+                if((masks[word] >>> keyword & 1) == 0){ continue; }
+                int other = wordKeyword[word];
+                if(other < 0 || (seen[other] != stamp && matchKeyword(other))){
+                    wordKeyword[word] = keyword;
+                    keywordWord[keyword] = word;
+                    return true;
+                }
+            }
+            return false;
+        }
+    } // Window
+
+    //words found by one search, with the paragraphs and sentences holding them - never changed once made
+    static class Found {
+        final int generation; // Tokenizer generation the words were found in
+        final IntList words;
+        final BitSet paragraphs = new BitSet(), sentences = new BitSet();
+
+        /** @param g Tokenizer generation
+         * @param w ascending word indexes found */
+        Found(int g, IntList w){
+            generation = g;
+            words = w;
+        }
+
+        /** @param t Tokenizer the words were found in
+         *  adds the paragraph and sentence of every word to the sets */
+        void addUnits(Tokenizer t){
+            for (int k = 0; k < words.size(); k++) {
+                int word = words.get(k);
+                paragraphs.set(t.wordParagraphs.get(word));
+                sentences.set(t.wordSentences.get(word));
+            }
+        }
+    } // Found
+
 }
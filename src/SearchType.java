@@ -0,0 +1,30 @@
+/* last update : 10/18/2026
+SearchType enum - what each search box looks for and the units a Query is answered over
+WHOLE_DOCUMENT highlights every match, SENTENCES and PARAGRAPH only where every search of the type matches together
+PROXIMITY highlights windows of at most NEAR/k words holding all of the keywords
+ */
+public enum SearchType {
+    WHOLE_DOCUMENT, SENTENCES, PARAGRAPH, PROXIMITY;
+
+    /** @param t Tokenizer searched
+     * @return number of units a query is answered over - sentences, paragraphs, or the one document */
+    int unitCount(Tokenizer t){
+        switch (this) {
+            case SENTENCES: return t.sentenceStarts.size();
+            case PARAGRAPH: return t.paragraphStarts.size();
+            default: return 1;
+        }
+    }
+
+    /** @param t Tokenizer searched
+     * @param word word index
+     * @return index of the unit holding the word */
+    int unitOf(Tokenizer t, int word){
+        switch (this) {
+            case SENTENCES: return t.wordSentences.get(word);
+            case PARAGRAPH: return t.wordParagraphs.get(word);
+            default: return 0;
+        }
+    }
+
+} // SearchType
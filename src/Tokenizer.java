@@ -1,190 +1,841 @@
-/* last update : 12/11/2021
+/* last update : 10/18/2026
 Tokenizer class - tokenizes the document
+words are stored column by column (one primitive array per property) and referred to by word index
+the document is read once, front to back, finding word, sentence and paragraph boundaries together
+listens to the document it was made from so later edits only re-tokenize the lines they touched
+can run on a background thread - reports progress and stops with a CancellationException when interrupted
+large documents are cut at line breaks into chunks tokenized in parallel, then joined in document order
  */
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
 import java.awt.Color;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.Scanner;
+import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-public class Tokenizer {
-    String document;
-    List<Integer> wordStarts = new ArrayList<>(); // indexes of start of each word token
-    List<Integer> paragraphStarts = new ArrayList<>(); // indexes of start of each paragraph
-    List<Integer> sentenceStarts = new ArrayList<>();
-    List<Integer> paragraphEnds = new ArrayList<>();
-    List<Integer> sentenceEnds = new ArrayList<>();
-    List<Word> allWords = new ArrayList<>();
-    HashMap<String, ArrayList<Word>> words = new HashMap<>();
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+public class Tokenizer implements DocumentListener {
+    static final int MIN_CHUNK = 1 << 20; // smallest number of characters worth tokenizing on another thread
+    static final int MAX_SEARCH_RESULTS = 64; // most search results remembered
+    private static final IntList EMPTY = new IntList(1); // never added to
+    IntList paragraphStarts = new IntList(); // indexes of start of each paragraph
+    IntList sentenceStarts = new IntList();
+    IntList paragraphEnds = new IntList(); // indexes of end of each paragraph, exclusive
+    IntList sentenceEnds = new IntList(); // indexes of end of each sentence, exclusive, including punctuation
+
+    //word columns - value at word index i describes the i-th word of the document
+    IntList wordStarts = new IntList(); // indexes of start of each word token
+    IntList wordEnds = new IntList(); // indexes of end of each word, not including punctuation
+    IntList wordSentences = new IntList(); // index of sentence of each word
+    IntList wordParagraphs = new IntList(); // index of paragraph of each word
+    IntList wordTerms = new IntList(); // term id of each word
+    BitSet punctuationFlags = new BitSet(); // words ending in punctuation
+    BitSet angleBracketFlags = new BitSet(); // words containing '<' or '>'
+    BitSet sentenceEndFlags = new BitSet(); // words ending in '.', '?' or '!'
+
+    //term dictionary - value at term id t describes one distinct word text
+    List<String> terms = new ArrayList<>();
+    IntList termHashes = new IntList(); // String.hashCode of each term
+    List<IntList> postings = new ArrayList<>(); // word indexes of each term in document order
+    private int[] termSlots = new int[1024]; // open addressing table of term id + 1, 0 when empty
+    TrigramIndex trigrams = new TrigramIndex(); // term ids by three-character piece of the term, for match case substrings
+    TrigramIndex foldedTrigrams = new TrigramIndex(); // term ids by piece of the lower case term, for ignore case substrings
+    List<String> foldedTerms = new ArrayList<>(); // lower case (Locale.ROOT) text of each term
+    HashMap<String, IntList> foldedTermIds = new HashMap<>(); // ids of every case variant of a lower case term
+    private int deadTerms = 0; // terms edits left without any word, dropped once they are half of the dictionary
+
+    //results of recent searches by keywords and match options, least recently used first, kept until the words change
+    int generation = 0; // raised each time the words change
+    final LinkedHashMap<String, Search.Found> searchResults = new LinkedHashMap<String, Search.Found>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Search.Found> eldest) { return size() > MAX_SEARCH_RESULTS; }
+    };
+
+    //highlight state set by Search
+    BitSet highlightFlags = new BitSet();
+    Color[] highlightColors;
+
+    //scanner state, carried between chunks of input
+    private char[] wordBuffer = new char[64];
+    private int offset = 0, wordStart = 0, wordLength = 0, lineStart = 0, lastWordEnd = 0;
+    private boolean lineHasWords = false, sentenceOpen = false, wordHasAngleBrackets = false;
+    private IntConsumer progress; // told the percent of the document tokenized, may be null
+    private int total = 0, percentDone = 0; // length of the document, if known
+    private AtomicBoolean cancelled; // set when a parallel tokenization is cancelled, null otherwise
+
+    //edits to the listened document not yet tokenized - range in current offsets, and change in length
+    private Document source;
+    private int dirtyStart = -1, dirtyEnd = 0, dirtyDelta = 0;
+
+    //content hash and size in bytes of the file the words were read from, used by TokenizerCache - size is -1 when
+    //the words did not come from a file or no longer match it
+    long fileHash = 0, fileLength = -1;
+    int textLength = -1; // characters of text Import extracted from the file, -1 if not known
 
     /** @param d text of entire document
      *          should be called when document is locked, so tokenization occurs while user enters search keys
      */
-    Tokenizer(String d) {
+    Tokenizer(CharSequence d) { this(d, null); }
 
-        document = d;
+    /** @param d text of entire document
+     * @param p told the percent of the document tokenized each time it changes, may be null
+     */
+    Tokenizer(CharSequence d, IntConsumer p) { this(d, p, chunkSize(d.length())); }
 
-        Matcher wordMatcher = Pattern.compile("\\S+").matcher(document);
+    /** @param d text of entire document
+     * @param p told the percent of the document tokenized each time it changes, may be null
+     * @param chunkSize documents longer than this are tokenized in chunks of about this size in parallel
+     */
+    Tokenizer(CharSequence d, IntConsumer p, int chunkSize) {
+        if (d.length() > chunkSize) { tokenizeInParallel(d, p, chunkSize); }
+        else {
+            progress = p;
+            total = d.length();
+            scan(d, 0, d.length());
+            finish();
+        }
+        highlightColors = new Color[wordCount()];
+    }
 
-        //find each word token and add indexes to list
-        while (wordMatcher.find()) { wordStarts.add(wordMatcher.start()); }
+    /** @param d text of entire document
+     * @param from index of first character of a chunk, just after a line break
+     * @param to index after last character of the chunk
+     * @param c set when the tokenization the chunk belongs to is cancelled
+     */
+    private Tokenizer(CharSequence d, int from, int to, AtomicBoolean c) {
+        cancelled = c;
+        scan(d, from, to);
+        finish();
+    }
 
-        Matcher paragraphMatcher = Pattern.compile("[^\\n\\r]+").matcher(document);
+    /** @param reader source of document text, read to its end but not closed */
+    Tokenizer(Reader reader) throws IOException {
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) { addText(CharBuffer.wrap(buffer, 0, read)); }
+        endText();
+    }
 
-        //add first element of each paragraph to list
-        while (paragraphMatcher.find()) {
-            paragraphStarts.add(paragraphMatcher.start());
-            paragraphEnds.add(paragraphMatcher.end()-1);
-        }
+    //empty Tokenizer for a document that arrives in pieces - give it each piece with addText, then call endText
+    Tokenizer() { }
 
-        getTokens();
+    /** @param text next piece of the document, words may continue into the following piece */
+    void addText(CharSequence text) { scan(text, 0, text.length()); }
 
+    //ends the last word, sentence and paragraph once every piece was added
+    void endText() {
+        finish();
+        highlightColors = new Color[wordCount()];
     }
 
-    void getTokens() {
+    /** @param length number of characters in the document
+     * @return size of chunks to tokenize in parallel, larger than length if it is not worth it */
+    private static int chunkSize(int length) {
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        if (threads < 2 || length < 2 * MIN_CHUNK) { return Integer.MAX_VALUE; }
+        return Math.max(MIN_CHUNK, length / (4 * threads));
+    }
 
-        boolean endOfSentence = true, punctuation = false;
-        int wordIndex = 0, paragraphIndex = 0, wordStart = 0, wordEnd = 0, sentenceNumber = 0;
-        String wordText;
+    /** tokenizes chunks of the document on the common fork/join pool and joins them in document order
+     *  the result is the same as tokenizing the whole document in one pass
+     * @param d text of entire document
+     * @param p told the percent of the document tokenized as chunks finish, may be null
+     * @param chunkSize number of characters after which a chunk ends at the next line break
+     */
+    private void tokenizeInParallel(CharSequence d, IntConsumer p, int chunkSize) {
+        int length = d.length();
+
+        //chunks start just after a line break, so no word or paragraph is split between chunks
+        IntList cuts = new IntList();
+        cuts.add(0);
+        for (int cut = chunkSize; cut < length; cut += chunkSize) {
+            while (cut < length && d.charAt(cut - 1) != '\n' && d.charAt(cut - 1) != '\r') { cut++; }
+            if (cut < length) { cuts.add(cut); }
+        }
+        cuts.add(length);
+
+        Tokenizer[] parts = new Tokenizer[cuts.size() - 1];
+        AtomicBoolean stop = new AtomicBoolean(false);
+        ForkJoinTask<?> task = ForkJoinPool.commonPool().submit(
+                new ChunkTask(d, cuts, parts, 0, parts.length, stop, new AtomicLong(), p));
+
+        try { task.get(); }
+        catch (InterruptedException e) {
+            stop.set(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Tokenizing cancelled");
+        }
+        catch (ExecutionException e) {
+            stop.set(true);
+            if (e.getCause() instanceof RuntimeException) { throw (RuntimeException) e.getCause(); }
+            throw new IllegalStateException(e.getCause());
+        }
 
-        Word word;
-        ArrayList<Word> sameWords;
-        Scanner scanner = new Scanner(document);
+        for (int i = 0; i < parts.length; i++) {
+            append(parts[i], cuts.get(i));
+            parts[i] = null;
+        }
+    }
 
-        //for each found word
-        while (scanner.hasNext()) {
+    //tokenizes a range of chunks, halving the range until each task has one chunk
+    private static class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final CharSequence text;
+        private final IntList cuts;
+        private final Tokenizer[] parts;
+        private final int first, last;
+        private final AtomicBoolean stop;
+        private final AtomicLong charactersDone;
+        private final IntConsumer progress;
+
+        /** @param t text of entire document
+         * @param c start of each chunk followed by the document length
+         * @param p array to put the Tokenizer of each chunk in
+         * @param f index of first chunk of the range
+         * @param l index after last chunk of the range
+         * @param s set when the tokenization is cancelled
+         * @param done number of characters in finished chunks
+         * @param progress told the percent of the document tokenized, may be null
+         */
+        ChunkTask(CharSequence t, IntList c, Tokenizer[] p, int f, int l, AtomicBoolean s, AtomicLong done,
+                  IntConsumer progress) {
+            text = t;
+            cuts = c;
+            parts = p;
+            first = f;
+            last = l;
+            stop = s;
+            charactersDone = done;
+            this.progress = progress;
+        }
 
-            //add index for beginning of sentence and turn off flag
-            if (endOfSentence) {
-                sentenceStarts.add(wordStarts.get(wordIndex));
-                endOfSentence = false;
+        @Override
+        protected void compute() {
+            if (last - first > 1) {
+                int middle = (first + last) >>> 1;
+                invokeAll(new ChunkTask(text, cuts, parts, first, middle, stop, charactersDone, progress),
+                        new ChunkTask(text, cuts, parts, middle, last, stop, charactersDone, progress));
+                return;
             }
 
-            wordText = scanner.next(); //get next token
+            int from = cuts.get(first), to = cuts.get(first + 1);
+            parts[first] = new Tokenizer(text, from, to, stop);
+            long done = charactersDone.addAndGet(to - from);
+            if (progress != null) { progress.accept((int) (100L * done / text.length())); }
+        }
+    } // ChunkTask
+
+    /** adds the words of the next chunk of the document to the end of this Tokenizer
+     * @param part Tokenizer of the chunk, with offsets counted from the chunk's start
+     * @param start index of the chunk's start in the document
+     */
+    private void append(Tokenizer part, int start) {
+        int wordBase = wordCount(), paragraphBase = paragraphStarts.size(), partWords = part.wordCount();
+        if (partWords == 0) { return; }
+
+        //the chunk's first sentence continues the last one unless it was ended
+        boolean previousEnds = wordBase == 0 || sentenceEndFlags.get(wordBase - 1);
+        int sentenceBase = (previousEnds ? sentenceStarts.size() : sentenceStarts.size() - 1);
+        if (!previousEnds) { sentenceEnds.size--; }
+        for (int s = (previousEnds ? 0 : 1); s < part.sentenceStarts.size(); s++) {
+            sentenceStarts.add(part.sentenceStarts.get(s) + start);
+        }
+        for (int s = 0; s < part.sentenceEnds.size(); s++) { sentenceEnds.add(part.sentenceEnds.get(s) + start); }
+
+        for (int q = 0; q < part.paragraphStarts.size(); q++) {
+            paragraphStarts.add(part.paragraphStarts.get(q) + start);
+            paragraphEnds.add(part.paragraphEnds.get(q) + start);
+        }
+
+        //new terms are added in the order the chunk first used them, which is their order in the document
+        int[] termMap = new int[part.terms.size()];
+        for (int t = 0; t < termMap.length; t++) { termMap[t] = internTerm(part.terms.get(t)); }
+
+        for (int w = 0; w < partWords; w++) {
+            int term = termMap[part.wordTerms.get(w)];
+            wordStarts.add(part.wordStarts.get(w) + start);
+            wordEnds.add(part.wordEnds.get(w) + start);
+            wordSentences.add(part.wordSentences.get(w) + sentenceBase);
+            wordParagraphs.add(part.wordParagraphs.get(w) + paragraphBase);
+            wordTerms.add(term);
+            postings.get(term).add(wordBase + w);
+        }
+        for (int b = part.punctuationFlags.nextSetBit(0); b >= 0; b = part.punctuationFlags.nextSetBit(b + 1)) {
+            punctuationFlags.set(wordBase + b);
+        }
+        for (int b = part.angleBracketFlags.nextSetBit(0); b >= 0; b = part.angleBracketFlags.nextSetBit(b + 1)) {
+            angleBracketFlags.set(wordBase + b);
+        }
+        for (int b = part.sentenceEndFlags.nextSetBit(0); b >= 0; b = part.sentenceEndFlags.nextSetBit(b + 1)) {
+            sentenceEndFlags.set(wordBase + b);
+        }
+    }
+
+    /** single forward sweep over text, may be called repeatedly with consecutive pieces of the document
+     * @param text characters to tokenize
+     * @param from index in text of first character
+     * @param to index in text after last character
+     */
+    private void scan(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++, offset++) {
+            if ((offset & 0xFFFF) == 0) { checkpoint(); }
+            char c = text.charAt(i);
+
+            //line break - ends the current word and, if it held any words, the current paragraph
+            if (c == '\n' || c == '\r') {
+                if (wordLength > 0) { endWord(); }
+                if (lineHasWords) {
+                    paragraphEnds.add(offset);
+                    lineHasWords = false;
+                }
+                lineStart = offset + 1;
+            }
 
-            //if token is end of sentence, flag end of sentence and shorten word to not include punctuation
-            if (wordText.endsWith(".") || wordText.endsWith("?") || wordText.endsWith("!")) {
-                wordText = wordText.substring(0, wordText.length() - 1);
-                endOfSentence = true;
-                punctuation = true;
+            //other whitespace ends the current word
+            else if (Character.isWhitespace(c)) {
+                if (wordLength > 0) { endWord(); }
             }
 
-            //if token includes comma, remove comma
-            else if (wordText.endsWith(",")) {
-                wordText = wordText.substring(0, wordText.length() - 1);
-                punctuation = true;
+            //any other character is part of a word
+            else {
+                if (wordLength == 0) {
+                    wordStart = offset;
+                    wordHasAngleBrackets = false;
+                }
+                if (wordLength == wordBuffer.length) { wordBuffer = Arrays.copyOf(wordBuffer, wordLength * 2); }
+                wordBuffer[wordLength++] = c;
+                if (c == '<' || c == '>') { wordHasAngleBrackets = true; }
             }
+        }
+    }
 
-            //get starting and ending positions of word
-            if(wordIndex < wordStarts.size()) {
-                wordStart = wordStarts.get(wordIndex);
-                wordEnd = wordText.length() + wordStart;
+    //called every 64K characters - stops if the thread was interrupted, otherwise reports progress
+    private void checkpoint() {
+        if (Thread.currentThread().isInterrupted() || (cancelled != null && cancelled.get())) {
+            throw new CancellationException("Tokenizing cancelled");
+        }
+        if (progress != null && total > 0) {
+            int percent = (int) (100L * offset / total);
+            if (percent != percentDone) {
+                percentDone = percent;
+                progress.accept(percent);
             }
+        }
+    }
 
-            word = new Word(wordText, paragraphIndex, wordStart, wordEnd, sentenceNumber, punctuation); //create word instance
+    //closes the word, paragraph and sentence still open at the end of the document
+    private void finish() {
+        if (wordLength > 0) { endWord(); }
+        if (lineHasWords) { paragraphEnds.add(offset); }
+        if (sentenceOpen) { sentenceEnds.add(lastWordEnd); }
+        wordBuffer = null;
+        progress = null;
+        cancelled = null;
+    }
 
-            if(wordText.contains("<") || wordText.contains(">")){ word.angleBrackets = true; }
+    //adds the word held in wordBuffer to the word columns and term dictionary
+    private void endWord() {
+        int length = wordLength, wordIndex = wordStarts.size();
+        boolean punctuation = false, endOfSentence = false;
+        char last = wordBuffer[length - 1];
+
+        //if token is end of sentence, flag end of sentence and shorten word to not include punctuation
+        if (last == '.' || last == '?' || last == '!') {
+            length--;
+            endOfSentence = true;
+            punctuation = true;
+        }
 
-            //set ArrayList of words to new or existing list of instances of the word
-            sameWords = (words.containsKey(wordText) ? words.get(wordText) : new ArrayList<>());
-            sameWords.add(word); //add current word to list
-            words.put(wordText, sameWords); //add list back into document word-map
-            allWords.add(word);
-            word.setIndex(allWords.size());
+        //if token includes comma, remove comma
+        else if (last == ',') {
+            length--;
+            punctuation = true;
+        }
 
-            if(punctuation){ wordEnd++; } //add character to end of word index for sentence / paragraph indexes
+        //first word of a sentence or paragraph opens it
+        if (!sentenceOpen) {
+            sentenceStarts.add(wordStart);
+            sentenceOpen = true;
+        }
+        if (!lineHasWords) {
+            paragraphStarts.add(lineStart);
+            lineHasWords = true;
+        }
 
-            //increment paragraph index if need be
-            while (!paragraphEnds.isEmpty() //if list of paragraph end indexes is populated (exception prevention)
-                    && paragraphIndex < paragraphEnds.size() //and the current index is not the last index
-                    && (wordEnd) >= paragraphEnds.get(paragraphIndex)) { //and this word is at the end of the paragraph
-                if(paragraphIndex + 1 < paragraphStarts.size() &&
-                        paragraphEnds.get(paragraphIndex) + 1 < paragraphStarts.get(paragraphIndex + 1)){
-                    paragraphEnds.set(paragraphIndex, paragraphStarts.get(paragraphIndex + 1) - 1);
-                }
-                //paragraphEnds.set(paragraphIndex, paragraphEnds.get(paragraphIndex) + 1);
-                paragraphIndex++;
-            }
+        //fill in the word's columns
+        wordStarts.add(wordStart);
+        wordEnds.add(wordStart + length);
+        wordSentences.add(sentenceStarts.size() - 1);
+        wordParagraphs.add(paragraphStarts.size() - 1);
+        int term = termId(wordBuffer, length);
+        wordTerms.add(term);
+        postings.get(term).add(wordIndex);
+        if (punctuation) { punctuationFlags.set(wordIndex); }
+        if (wordHasAngleBrackets) { angleBracketFlags.set(wordIndex); }
+        if (endOfSentence) { sentenceEndFlags.set(wordIndex); }
+
+        lastWordEnd = wordStart + wordLength;
+        if (endOfSentence) {
+            sentenceEnds.add(lastWordEnd);
+            sentenceOpen = false;
+        }
+        wordLength = 0;
+    }
+
+    /** @param text characters of a word without punctuation
+     * @param length number of characters in text
+     * @return id of the word's term, adding the term to the dictionary if it is new
+     */
+    private int termId(char[] text, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) { hash = 31 * hash + text[i]; }
+
+        int mask = termSlots.length - 1, slot = mix(hash) & mask, id;
+
+        //probe until the term or an empty slot is found
+        while (termSlots[slot] != 0) {
+            id = termSlots[slot] - 1;
+            if (termHashes.get(id) == hash && equals(terms.get(id), text, length)) { return id; }
+            slot = (slot + 1) & mask;
+        }
+
+        //new term - only place a String is created while tokenizing
+        return addTerm(new String(text, 0, length), hash, slot);
+    }
+
+    /** @param term text of a word without punctuation
+     * @return id of the term, adding the term to the dictionary if it is new
+     */
+    int internTerm(String term) {
+        int hash = term.hashCode(), mask = termSlots.length - 1, slot = mix(hash) & mask;
+        while (termSlots[slot] != 0) {
+            int id = termSlots[slot] - 1;
+            if (termHashes.get(id) == hash && terms.get(id).equals(term)) { return id; }
+            slot = (slot + 1) & mask;
+        }
+        return addTerm(term, hash, slot);
+    }
+
+    /** @param term text of a new term
+     * @param hash String.hashCode of the term
+     * @param slot empty slot of the term table found for the term
+     * @return id of the new term
+     */
+    private int addTerm(String term, int hash, int slot) {
+        int id = terms.size();
+        terms.add(term);
+        trigrams.add(term, id);
+        String folded = term.toLowerCase(Locale.ROOT); //same instance when term has no upper case
+        foldedTrigrams.add(folded, id);
+        foldedTerms.add(folded);
+        foldedTermIds.computeIfAbsent(folded, f -> new IntList(1)).add(id);
+        termHashes.add(hash);
+        postings.add(new IntList(4));
+        termSlots[slot] = id + 1;
+        if (terms.size() * 2 > termSlots.length) { growTermSlots(); }
+        return id;
+    }
 
-            //increment sentence index and add position to list if end of sentence
-            if (endOfSentence) {
-                sentenceEnds.add(wordEnd);
-                sentenceNumber++;
+    /** @param term text of a word without punctuation
+     * @return id of the term, or -1 if the word does not appear in the document
+     */
+    int termId(String term) {
+        int hash = term.hashCode(), mask = termSlots.length - 1, slot = mix(hash) & mask;
+        while (termSlots[slot] != 0) {
+            int id = termSlots[slot] - 1;
+            if (termHashes.get(id) == hash && terms.get(id).equals(term)) { return id; }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    //doubles the term table and re-inserts every term
+    private void growTermSlots() {
+        termSlots = new int[termSlots.length * 2];
+        int mask = termSlots.length - 1;
+        for (int id = 0; id < terms.size(); id++) {
+            int slot = mix(termHashes.get(id)) & mask;
+            while (termSlots[slot] != 0) { slot = (slot + 1) & mask; }
+            termSlots[slot] = id + 1;
+        }
+    }
+
+    /** @param hash String.hashCode of a term
+     * @return hash with high bits spread into the low bits used to pick a slot */
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equals(String term, char[] text, int length) {
+        if (term.length() != length) { return false; }
+        for (int i = 0; i < length; i++) { if (term.charAt(i) != text[i]) { return false; } }
+        return true;
+    }
+
+    /** @param d document this Tokenizer was made from, its edits are recorded until update() is called */
+    void listen(Document d) {
+        stopListening();
+        source = d;
+        source.addDocumentListener(this);
+    }
+
+    void stopListening() {
+        if (source != null) { source.removeDocumentListener(this); }
+        source = null;
+    }
+
+    /** @param d a document
+     * @return true if this Tokenizer was made from d and follows its edits */
+    boolean isListening(Document d) { return source != null && source == d; }
+
+    /** @return true if the followed document was edited since the words were last brought up to date */
+    boolean hasPendingEdits() { return dirtyStart >= 0; }
+
+    //edits are only recorded as they happen, the words are brought up to date by update()
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        int o = e.getOffset(), length = e.getLength();
+        if (dirtyStart < 0) { dirtyStart = o; dirtyEnd = o + length; }
+        else {
+            dirtyStart = Math.min(dirtyStart, o);
+            dirtyEnd = Math.max(dirtyEnd, o) + length;
+        }
+        dirtyDelta += length;
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        int o = e.getOffset(), length = e.getLength();
+        if (dirtyStart < 0) { dirtyStart = o; dirtyEnd = o; }
+        else {
+            dirtyStart = Math.min(dirtyStart, o);
+            dirtyEnd = Math.max(o, dirtyEnd - length);
+        }
+        dirtyDelta -= length;
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) { } //attribute changes do not affect words
+
+    /** brings the words up to date with the edits made to the listened document since the last update
+     *  only the lines touched by the edits are tokenized again, words after them are shifted
+     * @param p told the percent of the edited lines tokenized each time it changes, may be null
+     */
+    void update(IntConsumer p) throws BadLocationException {
+        if (dirtyStart < 0 || source == null) { return; }
+        fileLength = -1; //the words no longer match the file they were read from
+
+        //widen the edited range to whole lines - no word or paragraph crosses a line break
+        int length = source.getLength();
+        int newStart = lineStart(source, Math.min(dirtyStart, length)),
+                newEnd = lineEnd(source, Math.min(dirtyEnd, length)), delta = dirtyDelta;
+
+        Segment text = new Segment();
+        source.getText(newStart, newEnd - newStart, text);
+        Tokenizer part = new Tokenizer(text, p);
+
+        //edits are only forgotten once tokenizing them was not cancelled
+        dirtyStart = -1;
+        dirtyEnd = 0;
+        dirtyDelta = 0;
+        splice(part, newStart, newEnd - delta, delta);
+    }
+
+    /** replaces the words and paragraphs of one range of lines with those of the same lines after an edit
+     * @param part Tokenizer of the edited lines
+     * @param start index of the start of the lines, the same before and after the edit
+     * @param oldEnd index of the end of the lines before the edit
+     * @param delta change in length of the document
+     */
+    private void splice(Tokenizer part, int start, int oldEnd, int delta) {
+        int firstWord = wordStarts.firstAtLeast(start), endWord = wordStarts.firstAtLeast(oldEnd),
+                firstParagraph = paragraphStarts.firstAtLeast(start), endParagraph = paragraphStarts.firstAtLeast(oldEnd),
+                partWords = part.wordCount(), wordShift = partWords - (endWord - firstWord);
+
+        //sentences from the one of the word before the edited lines to the one of the word after them are replaced
+        int firstSentence = (firstWord == 0 ? 0 : wordSentences.get(firstWord - 1)),
+                endSentence = (endWord < wordCount() ? wordSentences.get(endWord) + 1 : sentenceStarts.size());
+
+        //the edited lines continue the sentence before them unless it was ended
+        boolean previousEnds = firstWord == 0 || sentenceEndFlags.get(firstWord - 1);
+        int previousSentence = (firstWord == 0 ? -1 : wordSentences.get(firstWord - 1)),
+                sentenceBase = (previousEnds ? previousSentence + 1 : previousSentence);
+
+        //and the words after them continue the last sentence of the edited lines unless it was ended
+        boolean lastEnds = (partWords == 0 ? previousEnds : part.sentenceEndFlags.get(partWords - 1));
+        int lastSentence = (partWords == 0 ? previousSentence : sentenceBase + part.wordSentences.get(partWords - 1)),
+                sentenceShift = (endWord < wordCount() ? (lastEnds ? lastSentence + 1 : lastSentence) - wordSentences.get(endWord) : 0),
+                paragraphShift = part.paragraphStarts.size() - (endParagraph - firstParagraph);
+
+        //words and paragraphs after the edited lines only move
+        wordStarts.addTo(endWord, delta);
+        wordEnds.addTo(endWord, delta);
+        wordSentences.addTo(endWord, sentenceShift);
+        wordParagraphs.addTo(endWord, paragraphShift);
+        paragraphStarts.addTo(endParagraph, delta);
+        paragraphEnds.addTo(endParagraph, delta);
+        sentenceStarts.addTo(endSentence, delta);
+        sentenceEnds.addTo(endSentence, delta);
+
+        //postings lose the replaced words, then every word after them moves by the change in word count
+        int[] oldTerms = Arrays.copyOfRange(wordTerms.data, firstWord, endWord);
+        Arrays.sort(oldTerms);
+        for (int i = 0; i < oldTerms.length; i++) {
+            if (i > 0 && oldTerms[i] == oldTerms[i - 1]) { continue; }
+            IntList termPostings = postings.get(oldTerms[i]);
+            termPostings.replace(termPostings.firstAtLeast(firstWord), termPostings.firstAtLeast(endWord), EMPTY, 0);
+            if (termPostings.isEmpty()) { deadTerms++; }
+        }
+        if (wordShift != 0) {
+            for (IntList termPostings : postings) { termPostings.addTo(termPostings.firstAtLeastFromEnd(endWord), wordShift); }
+        }
+
+        //words and paragraphs of the edited lines are replaced
+        int termCount = terms.size();
+        IntList partTerms = new IntList(partWords + 1);
+        int[] termMap = new int[part.terms.size()];
+        for (int t = 0; t < termMap.length; t++) { termMap[t] = internTerm(part.terms.get(t)); }
+        for (int w = 0; w < partWords; w++) { partTerms.add(termMap[part.wordTerms.get(w)]); }
+
+        //and the postings of their terms gain the new words, reviving any term an earlier edit left without words
+        for (int t = 0; t < termMap.length; t++) {
+            IntList termPostings = postings.get(termMap[t]), partPostings = part.postings.get(t);
+            if (termPostings.isEmpty() && termMap[t] < termCount) { deadTerms--; }
+            int at = termPostings.firstAtLeast(firstWord);
+            termPostings.replace(at, at, partPostings, firstWord);
+        }
+
+        wordStarts.replace(firstWord, endWord, part.wordStarts, start);
+        wordEnds.replace(firstWord, endWord, part.wordEnds, start);
+        wordSentences.replace(firstWord, endWord, part.wordSentences, sentenceBase);
+        wordParagraphs.replace(firstWord, endWord, part.wordParagraphs, firstParagraph);
+        wordTerms.replace(firstWord, endWord, partTerms, 0);
+        punctuationFlags = splice(punctuationFlags, firstWord, endWord, part.punctuationFlags, partWords);
+        angleBracketFlags = splice(angleBracketFlags, firstWord, endWord, part.angleBracketFlags, partWords);
+        sentenceEndFlags = splice(sentenceEndFlags, firstWord, endWord, part.sentenceEndFlags, partWords);
+        paragraphStarts.replace(firstParagraph, endParagraph, part.paragraphStarts, start);
+        paragraphEnds.replace(firstParagraph, endParagraph, part.paragraphEnds, start);
+
+        //the replaced sentences are found again from the words of the first one to the words of the last one
+        int fromWord = firstWord, toWord = firstWord + partWords;
+        while (fromWord > 0 && wordSentences.get(fromWord - 1) == firstSentence) { fromWord--; }
+        int afterSentence = (toWord < wordCount() ? wordSentences.get(toWord) : -1);
+        while (toWord < wordCount() && wordSentences.get(toWord) == afterSentence) { toWord++; }
+        IntList starts = new IntList(), ends = new IntList();
+        for (int w = fromWord; w < toWord; w++) {
+            if (w == fromWord || wordSentences.get(w) != wordSentences.get(w - 1)) {
+                if (w > fromWord) { ends.add(fullEnd(w - 1)); }
+                starts.add(wordStarts.get(w));
             }
+        }
+        if (toWord > fromWord) { ends.add(fullEnd(toWord - 1)); }
+        sentenceStarts.replace(firstSentence, endSentence, starts, 0);
+        sentenceEnds.replace(firstSentence, endSentence, ends, 0);
+
+        if (deadTerms * 2 > terms.size()) { dropDeadTerms(); }
 
-            wordIndex++;
+        //earlier search results point at the old words, and may share their postings
+        generation++;
+        searchResults.clear();
 
+        //a re-tokenized document starts without highlights
+        highlightFlags = new BitSet();
+        highlightColors = new Color[wordCount()];
+    }
+
+    //rebuilds the term dictionary without the terms no word uses any more, keeping the others in the same order
+    private void dropDeadTerms() {
+        List<String> oldTerms = terms;
+        List<IntList> oldPostings = postings;
+        terms = new ArrayList<>();
+        termHashes = new IntList();
+        postings = new ArrayList<>();
+        termSlots = new int[1024];
+        trigrams = new TrigramIndex();
+        foldedTrigrams = new TrigramIndex();
+        foldedTerms = new ArrayList<>();
+        foldedTermIds = new HashMap<>();
+
+        int[] termMap = new int[oldTerms.size()];
+        for (int t = 0; t < termMap.length; t++) {
+            if (oldPostings.get(t).isEmpty()) { continue; }
+            termMap[t] = internTerm(oldTerms.get(t));
+            postings.set(termMap[t], oldPostings.get(t));
         }
+        for (int w = 0; w < wordCount(); w++) { wordTerms.set(w, termMap[wordTerms.get(w)]); }
+        deadTerms = 0;
+    }
 
-        scanner.close();
+    /** @param bits flags of the words before the edit
+     * @param from index of first replaced word
+     * @param to index after last replaced word
+     * @param part flags of the new words
+     * @param partCount number of new words
+     * @return flags of the words after the edit
+     */
+    private static BitSet splice(BitSet bits, int from, int to, BitSet part, int partCount) {
+        BitSet spliced = bits.get(0, from);
+        for (int b = part.nextSetBit(0); b >= 0; b = part.nextSetBit(b + 1)) { spliced.set(from + b); }
+        int shift = from + partCount - to;
+        for (int b = bits.nextSetBit(to); b >= 0; b = bits.nextSetBit(b + 1)) { spliced.set(b + shift); }
+        return spliced;
     }
 
-    public static class Word {
-        String textOfWord;
-        int paragraph, positionStart, positionEnd, documentIndex, sentenceIndex;
-        boolean highlightFlag = false, punctuation, angleBrackets = false;
-        Color highlightColor = Color.white;
+    /** @param w word index
+     * @return index of end of word, including punctuation */
+    private int fullEnd(int w) { return wordEnds.get(w) + (punctuationFlags.get(w) ? 1 : 0); }
+
+    /** @return index after the last line break before offset, or 0 */
+    private static int lineStart(Document d, int offset) throws BadLocationException {
+        Segment text = new Segment();
+        while (offset > 0) {
+            int from = Math.max(0, offset - 1024);
+            d.getText(from, offset - from, text);
+            for (int i = text.count - 1; i >= 0; i--) {
+                char c = text.array[text.offset + i];
+                if (c == '\n' || c == '\r') { return from + i + 1; }
+            }
+            offset = from;
+        }
+        return 0;
+    }
 
-        /** @param word  text of word
-         * @param p      index of paragraph
-         * @param pStart start index of word
-         * @param pEnd   end index of word
-         * @param sI     index of sentence in document
-         * @param punc   flag for words ending in punctuation
-         */
-        Word(String word, int p, int pStart, int pEnd, int sI, boolean punc) {
-            textOfWord = word;
-            paragraph = p;
-            positionStart = pStart;
-            positionEnd = pEnd;
-            sentenceIndex = sI;
-            punctuation = punc;
+    /** @return index of the first line break at or after offset, or the document length */
+    private static int lineEnd(Document d, int offset) throws BadLocationException {
+        Segment text = new Segment();
+        int length = d.getLength();
+        while (offset < length) {
+            int to = Math.min(length, offset + 1024);
+            d.getText(offset, to - offset, text);
+            for (int i = 0; i < text.count; i++) {
+                char c = text.array[text.offset + i];
+                if (c == '\n' || c == '\r') { return offset + i; }
+            }
+            offset = to;
         }
+        return length;
+    }
+
+    /** @return number of words in the document */
+    int wordCount(){ return wordStarts.size(); }
+
+    /** @return rough number of bytes held by the token columns, term dictionary and indexes */
+    long estimatedBytes(){
+        long bytes = 4L * (paragraphStarts.data.length + paragraphEnds.data.length + sentenceStarts.data.length
+                + sentenceEnds.data.length + wordStarts.data.length + wordEnds.data.length + wordSentences.data.length
+                + wordParagraphs.data.length + wordTerms.data.length + termHashes.data.length + termSlots.length);
+        bytes += (punctuationFlags.size() + angleBracketFlags.size() + sentenceEndFlags.size() + highlightFlags.size()) / 8;
+        if (highlightColors != null) { bytes += 4L * highlightColors.length; }
+
+        //each term is kept twice, as written and lower cased, with a posting list and a map entry
+        for (int t = 0; t < terms.size(); t++) { bytes += 2 * (40 + 2L * terms.get(t).length()) + 32 + 32; }
+        for (IntList posting : postings) { bytes += 4L * posting.data.length; }
+        return bytes + trigrams.estimatedBytes() + foldedTrigrams.estimatedBytes();
+    }
 
-        /** @param i number of word in chronological order within document */
-        void setIndex(int i){ documentIndex = i; }
+    /** @param i word index
+     * @return text of word without punctuation */
+    String wordText(int i){ return terms.get(wordTerms.get(i)); }
 
-    } // Word class
+    /**@param t term id
+     * @param keyword search term
+     * @param folded keyword in lower case (Locale.ROOT)
+     * @param e exact match flag
+     * @param m match case flag
+     * */
+    boolean termMatches(int t, String keyword, String folded, boolean e, boolean m){
+        if(m && e){ return terms.get(t).equals(keyword); }
+        else if(m){ return terms.get(t).contains(keyword); }
+        else if(e) { return foldedTerms.get(t).equals(folded); }
+        else { return foldedTerms.get(t).contains(folded); }
+    }
 
     /**@param keyword search term
      * @param e exact match flag
      * @param m match case flag
+     * @return ascending word indexes of every matching word (positional postings of the keyword)
+     *          when a single term matches this is the term's own posting list, so it must not be modified
      * */
-    List<Word> found(String keyword, boolean e, boolean m){
-        List<Word> foundWords = new ArrayList<>();
-        for(String key : words.keySet()){
-            if(m && e){ if (key.equals(keyword)) { foundWords.addAll(words.get(key)); } }
-            else if(m){ if (key.contains(keyword)) { foundWords.addAll(words.get(key)); } }
-            else if(e) { if (key.equalsIgnoreCase(keyword)) { foundWords.addAll(words.get(key)); } }
-            else {
-                if (key.toLowerCase().contains(keyword.toLowerCase(Locale.ROOT))) { foundWords.addAll(words.get(key)); }
-            }
+    IntList found(String keyword, boolean e, boolean m){
+        IntList matchedTerms = matchedTerms(keyword, e, m);
+        if(matchedTerms.isEmpty()){ return new IntList(1); }
+        if(matchedTerms.size() == 1){ return postings.get(matchedTerms.get(0)); }
+
+        //several terms match - merge their postings into one ascending list
+        int total = 0;
+        for(int i = 0; i < matchedTerms.size(); i++){ total += postings.get(matchedTerms.get(i)).size(); }
+        IntList foundWords = new IntList(total);
+        for(int i = 0; i < matchedTerms.size(); i++){
+            IntList termPostings = postings.get(matchedTerms.get(i));
+            System.arraycopy(termPostings.data, 0, foundWords.data, foundWords.size, termPostings.size());
+            foundWords.size += termPostings.size();
         }
+        Arrays.sort(foundWords.data, 0, foundWords.size);
         return foundWords;
     }
 
-    /**@param keptWord previous word
-     * @param b next word
+    /**@param keyword search term
      * @param e exact match flag
      * @param m match case flag
+     * @return number of words matching the keyword, counted from the postings without merging them
      * */
-    boolean nextWordMatch(Word keptWord, String b, boolean e, boolean m){
-
-        int wordIndex = keptWord.documentIndex;
-        String wordB = allWords.get(wordIndex).textOfWord;
-
-        if(m && e){return wordB.equals(b);}
-        else if(m){ return wordB.contains(b); }
-        else if(e) {return wordB.equalsIgnoreCase(b);}
-        else { return wordB.toLowerCase().contains(b.toLowerCase()); }
+    int frequency(String keyword, boolean e, boolean m){
+        IntList matchedTerms = matchedTerms(keyword, e, m);
+        int total = 0;
+        for(int i = 0; i < matchedTerms.size(); i++){ total += postings.get(matchedTerms.get(i)).size(); }
+        return total;
     }
 
-    /** @param a    current word - returns the word after 'a' */
-    Word nextWord(Word a){ return allWords.get(a.documentIndex); }
+    /**@param keyword search term
+     * @param e exact match flag
+     * @param m match case flag
+     * @return ids of the terms matching the keyword, may be the lower case term map's own list so it must not be modified
+     * */
+    private IntList matchedTerms(String keyword, boolean e, boolean m){
+        IntList matchedTerms = new IntList(4);
+        String folded = keyword.toLowerCase(Locale.ROOT);
+
+        //exact searches are one lookup in the term table or the lower case term map
+        if(e){
+            if(m){
+                int t = termId(keyword);
+                if(t >= 0){ matchedTerms.add(t); }
+            }
+            else {
+                IntList variants = foldedTermIds.get(folded);
+                if(variants != null){ matchedTerms = variants; }
+            }
+        }
+
+        //substring searches only check the terms that share every trigram with the keyword, in the form they are checked in
+        else {
+            IntList candidates = (m ? trigrams.candidates(keyword) : foldedTrigrams.candidates(folded));
+            int count = (candidates == null ? terms.size() : candidates.size());
 
-    /** @param a    current word - returns the word before 'a' */
-    Word wordBefore(Word a){ return allWords.get(a.documentIndex - 2); }
+            for(int c = 0; c < count; c++){
+                int t = (candidates == null ? c : candidates.get(c));
+                if(termMatches(t, keyword, folded, false, m)){ matchedTerms.add(t); }
+            }
+        }
+        return matchedTerms;
+    }
 }
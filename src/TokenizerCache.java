@@ -0,0 +1,81 @@
+/* last update : 10/18/2026
+TokenizerCache class - keeps the Tokenizers of recently closed files in memory, so opening the same file again skips tokenizing
+entries are keyed by the file's content hash and size, the ones Import already works out for its IndexFile
+only Tokenizers whose words still match their file are kept - one brought up to date with edits has no file key
+the cache holds at most a set number of bytes, counted with each Tokenizer's estimate of its own size, the least recently
+used entry going first, and entries are soft references so the garbage collector can drop them when memory runs low
+a Tokenizer is taken out of the cache while it is in use, since following a document's edits changes it
+ */
+import java.lang.ref.SoftReference;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TokenizerCache {
+    private final long maxBytes; // most bytes of Tokenizers kept
+    private long bytes = 0; // estimated bytes of the Tokenizers kept, including any the garbage collector dropped
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // least recently used first
+
+    /** @param maxBytes most bytes of Tokenizers to keep, a larger Tokenizer is never kept */
+    TokenizerCache(long maxBytes){ this.maxBytes = maxBytes; }
+
+    /** @param hash content hash of the file, see IndexFile.contentHash
+     * @param length number of bytes in the file
+     * @return Tokenizer of the file, now removed from the cache, or null if none is kept */
+    synchronized Tokenizer take(long hash, long length){
+        Entry entry = entries.remove(new Key(hash, length));
+        if(entry == null){ return null; }
+        bytes -= entry.bytes;
+        return entry.tokenizer.get();
+    }
+
+    /** keeps a Tokenizer no longer in use, without its highlights, dropping the least recently used ones to make room
+     * @param t Tokenizer no longer following any document, skipped if its words no longer match its file
+     */
+    synchronized void put(Tokenizer t){
+        if(t.fileLength < 0){ return; }
+        t.highlightFlags = new BitSet();
+
+        Entry entry = new Entry(t, t.estimatedBytes());
+        if(entry.bytes > maxBytes){ return; }
+        Entry replaced = entries.put(new Key(t.fileHash, t.fileLength), entry);
+        bytes += entry.bytes - (replaced == null ? 0 : replaced.bytes);
+
+        Iterator<Map.Entry<Key, Entry>> oldest = entries.entrySet().iterator();
+        while(bytes > maxBytes){
+            bytes -= oldest.next().getValue().bytes;
+            oldest.remove();
+        }
+    }
+
+    //content hash and size of a file
+    private static class Key {
+        final long hash, length;
+
+        Key(long h, long l){
+            hash = h;
+            length = l;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            return o instanceof Key && ((Key) o).hash == hash && ((Key) o).length == length;
+        }
+
+        @Override
+        public int hashCode(){ return Long.hashCode(hash) * 31 + Long.hashCode(length); }
+    } // Key
+
+    //a kept Tokenizer and its size when it was put in
+    private static class Entry {
+        final SoftReference<Tokenizer> tokenizer;
+        final long bytes;
+
+        Entry(Tokenizer t, long b){
+            tokenizer = new SoftReference<>(t);
+            bytes = b;
+        }
+    } // Entry
+
+} // TokenizerCache
@@ -0,0 +1,122 @@
+/* last update : 10/18/2026
+TrigramIndex class - maps every three-character piece of a term to the ids of the terms containing it
+built by Tokenizer as new terms are found, used to narrow substring searches to a few candidate terms
+characters are packed as given - Tokenizer keeps one index of the terms as written for match case searches and one of
+their lower case forms for ignore case searches, so a candidate is pruned with the same text it is checked against
+ */
+import java.util.Arrays;
+
+public class TrigramIndex {
+    private long[] keys = new long[1024]; // packed trigram of each slot
+    private IntList[] termLists = new IntList[1024]; // ascending term ids of each slot, null when slot is empty
+    private int trigramCount = 0;
+
+    /** @param term text of a new term
+     * @param termId id of the term, must be larger than any id added before
+     */
+    void add(String term, int termId){
+        for(int i = 0; i + 2 < term.length(); i++){
+            IntList termIds = list(trigram(term, i), true);
+
+            //a trigram repeated within one term is only listed once
+            if(termIds.isEmpty() || termIds.get(termIds.size() - 1) != termId){ termIds.add(termId); }
+        }
+    }
+
+    /** @param keyword search term, in the same case as the terms added
+     * @return ascending ids of terms that contain every trigram of the keyword,
+     *          or null if the keyword is too short to have a trigram
+     */
+    IntList candidates(String keyword){
+        if(keyword.length() < 3){ return null; }
+
+        //look up the list of each trigram, stopping early if one is missing
+        IntList[] lists = new IntList[keyword.length() - 2];
+        for(int i = 0; i < lists.length; i++){
+            lists[i] = list(trigram(keyword, i), false);
+            if(lists[i] == null){ return new IntList(1); }
+        }
+
+        //intersect from the shortest list so the working list only shrinks
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+        IntList kept = new IntList(lists[0].size());
+        for(int k = 0; k < lists[0].size(); k++){ kept.add(lists[0].get(k)); }
+
+        for(int i = 1; i < lists.length && !kept.isEmpty(); i++){
+            if(lists[i] == lists[i - 1]){ continue; } //same trigram twice in keyword
+            kept = intersect(kept, lists[i]);
+        }
+        return kept;
+    }
+
+    /** @param a ascending ids
+     * @param b ascending ids
+     * @return ids found in both lists */
+    private static IntList intersect(IntList a, IntList b){
+        IntList both = new IntList(a.size());
+        int i = 0, j = 0;
+        while(i < a.size() && j < b.size()){
+            int x = a.get(i), y = b.get(j);
+            if(x == y){ both.add(x); i++; j++; }
+            else if(x < y){ i++; }
+            else { j++; }
+        }
+        return both;
+    }
+
+    /** @return rough number of bytes held by the table and its lists of term ids */
+    long estimatedBytes(){
+        long bytes = 12L * keys.length;
+        for(IntList termIds : termLists){
+            if(termIds != null){ bytes += 32 + 4L * termIds.data.length; }
+        }
+        return bytes;
+    }
+
+    /** @param text term or keyword
+     * @param i index of first character of the trigram
+     * @return the three characters packed into one long */
+    private static long trigram(String text, int i){
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    /** @param key packed trigram
+     * @param create true to add an empty list if the trigram is not in the index yet
+     * @return list of term ids for the trigram, null if missing and not created */
+    private IntList list(long key, boolean create){
+        int mask = keys.length - 1, slot = slot(key, mask);
+        while(termLists[slot] != null){
+            if(keys[slot] == key){ return termLists[slot]; }
+            slot = (slot + 1) & mask;
+        }
+        if(!create){ return null; }
+
+        IntList termIds = new IntList(2);
+        keys[slot] = key;
+        termLists[slot] = termIds;
+        if(++trigramCount * 2 > keys.length){ grow(); }
+        return termIds;
+    }
+
+    //doubles the table and re-inserts every trigram
+    private void grow(){
+        long[] oldKeys = keys;
+        IntList[] oldLists = termLists;
+        keys = new long[oldKeys.length * 2];
+        termLists = new IntList[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for(int s = 0; s < oldKeys.length; s++){
+            if(oldLists[s] == null){ continue; }
+            int slot = slot(oldKeys[s], mask);
+            while(termLists[slot] != null){ slot = (slot + 1) & mask; }
+            keys[slot] = oldKeys[s];
+            termLists[slot] = oldLists[s];
+        }
+    }
+
+    private static int slot(long key, int mask){
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+} // TrigramIndex